@@ -0,0 +1,87 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+
+
+/**
+ * Measures the cost of <code>getElementAt</code> of a <code>DefaultComponentListModel</code>
+ * with 10 000 components, using the default <code>Vector</code> storage and the
+ * EDT-confined array storage. The benchmark runs on the event dispatching thread
+ * and should be run without assertions, which enable the thread checks of the
+ * EDT-confined model:
+ * <pre>
+ * mvn test-compile exec:java -P bench -Dbench=ComponentListModelBenchmark
+ * </pre>
+ * @author Grigor Iliev
+ */
+public class ComponentListModelBenchmark {
+	private final static int SIZE = 10000;
+	private final static int WARMUP_PASSES = 20;
+	private final static int PASSES = 1000;
+	
+	/** Consumes the results, so that the reads are not optimized away. */
+	private static long sink = 0;
+	
+	/**
+	 * Reads all components of the specified model the specified number of times.
+	 * @return The elapsed time in nanoseconds.
+	 */
+	private static long
+	run(DefaultComponentListModel<JLabel> m, int passes) {
+		long t = System.nanoTime();
+		
+		for(int p = 0; p < passes; p++) {
+			int n = m.getSize();
+			for(int i = 0; i < n; i++) sink += m.getElementAt(i).hashCode() & 1;
+		}
+		
+		return System.nanoTime() - t;
+	}
+	
+	public static void
+	main(String[] args) throws Exception {
+		SwingUtilities.invokeAndWait(() -> {
+			DefaultComponentListModel<JLabel> vector = new DefaultComponentListModel<JLabel>();
+			DefaultComponentListModel<JLabel> array = new DefaultComponentListModel<JLabel>(true);
+			
+			for(int i = 0; i < SIZE; i++) {
+				JLabel l = new JLabel();
+				vector.add(l);
+				array.add(l);
+			}
+			
+			for(int i = 0; i < WARMUP_PASSES; i++) {
+				run(vector, 200);
+				run(array, 200);
+			}
+			
+			double n = (double)PASSES * SIZE;
+			System.out.printf("Vector storage: %.2f ns/get%n", run(vector, PASSES) / n);
+			System.out.printf("Array storage:  %.2f ns/get%n", run(array, PASSES) / n);
+		});
+	}
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+import java.awt.Container;
+
+import java.util.Random;
+
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+
+
+/**
+ * Measures the time needed to apply bursts of 50 <code>set</code> calls to a
+ * <code>ComponentList</code> with 2000 rows, when the pending changes are flushed
+ * and laid out after each event and when they are coalesced into a single flush
+ * and layout per burst:
+ * <pre>
+ * mvn test-compile exec:java -P bench -Dbench=ComponentListUpdateBenchmark
+ * </pre>
+ * @author Grigor Iliev
+ */
+public class ComponentListUpdateBenchmark {
+	private final static int SIZE = 2000;
+	private final static int BURSTS = 200;
+	private final static int BURST_SIZE = 50;
+	
+	/**
+	 * Applies the bursts of changes to a new list.
+	 * @param flushEachEvent Specifies whether the changes should
+	 * be flushed and laid out after each event.
+	 * @return The average time per burst in microseconds.
+	 */
+	private static long
+	run(boolean flushEachEvent) {
+		DefaultComponentListModel<JLabel> m = new DefaultComponentListModel<JLabel>();
+		ComponentList list = new ComponentList(m);
+		list.setSize(200, 40000);
+		
+		for(int i = 0; i < SIZE; i++) m.add(new JLabel("Row " + i));
+		list.flushPendingUpdates();
+		layout(list);
+		
+		Random r = new Random(3);
+		long t = System.nanoTime();
+		
+		for(int i = 0; i < BURSTS; i++) {
+			for(int j = 0; j < BURST_SIZE; j++) {
+				m.set(r.nextInt(SIZE), new JLabel("Changed"));
+				
+				if(flushEachEvent) {
+					list.flushPendingUpdates();
+					layout(list);
+				}
+			}
+			
+			list.flushPendingUpdates();
+			layout(list);
+		}
+		
+		return (System.nanoTime() - t) / BURSTS / 1000;
+	}
+	
+	/** Lays out the specified container and its descendants. */
+	private static void
+	layout(Container c) {
+		c.doLayout();
+		
+		for(Component child : c.getComponents()) {
+			if(child instanceof Container) layout((Container)child);
+		}
+	}
+	
+	public static void
+	main(String[] args) throws Exception {
+		SwingUtilities.invokeAndWait(() -> {
+			// warm-up
+			for(int i = 0; i < 2; i++) {
+				run(true);
+				run(false);
+			}
+			
+			System.out.println("Flush after each event: " + run(true) + " us/burst");
+			System.out.println("Coalesced flush:        " + run(false) + " us/burst");
+		});
+	}
+}
\ No newline at end of file
@@ -0,0 +1,290 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.ArrayList;
+
+import javax.swing.AbstractListModel;
+import javax.swing.event.ListDataEvent;
+
+
+/**
+ * This class provides a skeletal implementation of the <code>ReadOnlyComponentListModel</code>
+ * interface, which implements the batching of changes. The subclasses whose components
+ * can be changed through the model should also implement <code>ComponentListModel</code>. While a batch is in progress
+ * the events fired by the <code>fireXxx</code> methods are not delivered to the
+ * listeners. Instead, they are coalesced and delivered when the outermost batch ends.
+ * If the changes cannot be described by a single event, the listeners are notified
+ * that the dirty range of the list (the range between the unchanged head and tail of
+ * the list) has been replaced, which requires at most two events.
+ * @author Grigor Iliev
+ */
+public abstract class AbstractComponentListModel<C extends Component>
+			extends AbstractListModel implements ReadOnlyComponentListModel<C> {
+	
+	private int batchDepth = 0;
+	private boolean componentListIsAdjusting = false;
+	private final ArrayList<PendingEvent> pendingEvents = new ArrayList<PendingEvent>();
+	
+	/** The size of the list when the outermost batch has begun. */
+	private int batchStartSize = 0;
+	
+	/** The number of leading components that were not changed during the batch. */
+	private int cleanHead = 0;
+	
+	/** The number of trailing components that were not changed during the batch. */
+	private int cleanTail = 0;
+	
+	/**
+	 * Begins a batch of changes. Batches can be nested and the events
+	 * describing the changes are delivered when the outermost batch ends.
+	 * @see #endBatch
+	 */
+	public void
+	beginBatch() {
+		if(batchDepth++ > 0) return;
+		
+		batchStartSize = getSize();
+		cleanHead = cleanTail = Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * Ends a batch of changes. If this is the outermost batch, a minimal
+	 * set of events describing all changes made during the batch is fired.
+	 * @throws IllegalStateException If there is no batch in progress.
+	 * @see #beginBatch
+	 */
+	public void
+	endBatch() {
+		if(batchDepth == 0) {
+			throw new IllegalStateException("endBatch() without matching beginBatch()");
+		}
+		
+		if(--batchDepth > 0) return;
+		
+		PendingEvent[] events = pendingEvents.toArray(new PendingEvent[pendingEvents.size()]);
+		pendingEvents.clear();
+		
+		if(events.length > 1) events = getDirtyRangeEvents(events[0].source);
+		
+		for(PendingEvent e : events) {
+			switch(e.type) {
+			case ListDataEvent.INTERVAL_ADDED:
+				super.fireIntervalAdded(e.source, e.index0, e.index1);
+				break;
+			case ListDataEvent.INTERVAL_REMOVED:
+				super.fireIntervalRemoved(e.source, e.index0, e.index1);
+				break;
+			case ListDataEvent.CONTENTS_CHANGED:
+				super.fireContentsChanged(e.source, e.index0, e.index1);
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Determines whether a batch of changes is in progress.
+	 * @return <code>true</code> if a batch of changes is in progress,
+	 * <code>false</code> otherwise.
+	 */
+	public boolean
+	isBatchInProgress() { return batchDepth > 0; }
+	
+	/**
+	 * Determines whether there are known upcoming changes to the
+	 * component list, which should be considered as part of a single action.
+	 * @return <code>true</code> if a batch of changes is in progress,
+	 * <code>false</code> otherwise.
+	 */
+	@Override
+	public boolean
+	getComponentListIsAdjusting() { return isBatchInProgress(); }
+	
+	/**
+	 * Sets whether there are upcoming changes to the
+	 * component list which should be considered part of a single action.
+	 * Setting this property to <code>true</code> begins a batch of changes,
+	 * which ends when the property is set back to <code>false</code>.
+	 * @see #beginBatch
+	 */
+	public void
+	setComponentListIsAdjusting(boolean b) {
+		if(componentListIsAdjusting == b) return;
+		
+		componentListIsAdjusting = b;
+		if(b) beginBatch();
+		else endBatch();
+	}
+	
+	@Override
+	protected void
+	fireIntervalAdded(Object source, int index0, int index1) {
+		if(isBatchInProgress()) addPendingEvent(ListDataEvent.INTERVAL_ADDED, source, index0, index1);
+		else super.fireIntervalAdded(source, index0, index1);
+	}
+	
+	@Override
+	protected void
+	fireIntervalRemoved(Object source, int index0, int index1) {
+		if(isBatchInProgress()) addPendingEvent(ListDataEvent.INTERVAL_REMOVED, source, index0, index1);
+		else super.fireIntervalRemoved(source, index0, index1);
+	}
+	
+	@Override
+	protected void
+	fireContentsChanged(Object source, int index0, int index1) {
+		if(isBatchInProgress()) addPendingEvent(ListDataEvent.CONTENTS_CHANGED, source, index0, index1);
+		else super.fireContentsChanged(source, index0, index1);
+	}
+	
+	/**
+	 * Gets the events notifying that the dirty range of the list has been replaced.
+	 * The added or removed components are reported first, so that the listeners
+	 * always see a list whose size matches the size of the model.
+	 */
+	private PendingEvent[]
+	getDirtyRangeEvents(Object source) {
+		int size = getSize();
+		int head = Math.min(cleanHead, Math.min(batchStartSize, size));
+		int tail = Math.min(cleanTail, Math.min(batchStartSize, size) - head);
+		
+		int oldCount = batchStartSize - head - tail;
+		int newCount = size - head - tail;
+		int n = Math.min(oldCount, newCount);
+		
+		ArrayList<PendingEvent> events = new ArrayList<PendingEvent>(2);
+		
+		if(newCount > oldCount) {
+			events.add(new PendingEvent (
+				ListDataEvent.INTERVAL_ADDED, source, head + oldCount, head + newCount - 1
+			));
+		} else if(newCount < oldCount) {
+			events.add(new PendingEvent (
+				ListDataEvent.INTERVAL_REMOVED, source, head + newCount, head + oldCount - 1
+			));
+		}
+		
+		if(n > 0) {
+			events.add(new PendingEvent (
+				ListDataEvent.CONTENTS_CHANGED, source, head, head + n - 1
+			));
+		}
+		
+		return events.toArray(new PendingEvent[events.size()]);
+	}
+	
+	/**
+	 * Records the specified change, merging it with the previous
+	 * change when both can be described by a single event.
+	 */
+	private void
+	addPendingEvent(int type, Object source, int index0, int index1) {
+		int first = Math.min(index0, index1);
+		int last = Math.max(index0, index1);
+		int count = last - first + 1;
+		
+		updateDirtyRange(type, first, last);
+		
+		PendingEvent e = pendingEvents.isEmpty() ? null : pendingEvents.get(pendingEvents.size() - 1);
+		
+		if(e == null || e.source != source || first < 0) {
+			pendingEvents.add(new PendingEvent(type, source, first, last));
+			return;
+		}
+		
+		if(type == ListDataEvent.INTERVAL_ADDED && e.type == type) {
+			// inserted inside or right after the previously inserted interval
+			if(first >= e.index0 && first <= e.index1 + 1) {
+				e.index1 += count;
+				return;
+			}
+		} else if(type == ListDataEvent.INTERVAL_REMOVED && e.type == type) {
+			// the removed interval contains or is adjacent to the previously removed position
+			if(first <= e.index0 && e.index0 <= last + 1) {
+				e.index1 = last + (e.index1 - e.index0 + 1);
+				e.index0 = first;
+				return;
+			}
+		} else if(type == ListDataEvent.CONTENTS_CHANGED && e.type == type) {
+			if(first <= e.index1 + 1 && last >= e.index0 - 1) {
+				e.index0 = Math.min(e.index0, first);
+				e.index1 = Math.max(e.index1, last);
+				return;
+			}
+		} else if(type == ListDataEvent.CONTENTS_CHANGED && e.type == ListDataEvent.INTERVAL_ADDED) {
+			// the change is already covered by the insertion
+			if(first >= e.index0 && last <= e.index1) return;
+		} else if(type == ListDataEvent.INTERVAL_REMOVED && e.type == ListDataEvent.INTERVAL_ADDED) {
+			// removal of components inserted during the batch
+			if(first >= e.index0 && last <= e.index1) {
+				e.index1 -= count;
+				if(e.index1 < e.index0) pendingEvents.remove(pendingEvents.size() - 1);
+				return;
+			}
+		}
+		
+		pendingEvents.add(new PendingEvent(type, source, first, last));
+	}
+	
+	/**
+	 * Shrinks the unchanged head and tail of the list according to the specified change.
+	 * Note that the change is already applied to the list.
+	 */
+	private void
+	updateDirtyRange(int type, int first, int last) {
+		int size = getSize();
+		
+		if(first < 0) {
+			cleanHead = cleanTail = 0;
+			return;
+		}
+		
+		cleanHead = Math.min(cleanHead, first);
+		
+		switch(type) {
+		case ListDataEvent.INTERVAL_REMOVED:
+			cleanTail = Math.min(cleanTail, size - first);
+			break;
+		default:
+			cleanTail = Math.min(cleanTail, size - 1 - last);
+		}
+		
+		cleanTail = Math.max(0, cleanTail);
+	}
+	
+	private static class PendingEvent {
+		final int type;
+		final Object source;
+		int index0;
+		int index1;
+		
+		PendingEvent(int type, Object source, int index0, int index1) {
+			this.type = type;
+			this.source = source;
+			this.index0 = index0;
+			this.index1 = index1;
+		}
+	}
+}
\ No newline at end of file
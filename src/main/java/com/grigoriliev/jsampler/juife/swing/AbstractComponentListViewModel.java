@@ -0,0 +1,395 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+
+/**
+ * This class provides a skeletal implementation of a <code>ComponentListModel</code>
+ * which presents the components of another (source) model in a different order or
+ * presents only some of them. Like <code>TableRowSorter</code>, the view model keeps
+ * a map between the indices of the view and the indices of the source model, which
+ * is updated incrementally when the source model changes.
+ * <p>The changes made through the view model are forwarded to the source model,
+ * with the indices converted to source model indices.</p>
+ * @author Grigor Iliev
+ */
+public abstract class AbstractComponentListViewModel<C extends Component>
+			extends AbstractComponentListModel<C> implements ComponentListModel<C> {
+	
+	private final ComponentListModel<C> sourceModel;
+	
+	/** The source model indices of the rows in view order. */
+	private int[] viewToModel = new int[16];
+	private int rowCount = 0;
+	
+	/** The view indices of the source model components (-1 if not in the view), rebuilt lazily. */
+	private int[] modelToView = new int[0];
+	private boolean modelToViewValid = false;
+	
+	private final ListDataListener handler = new ListDataListener() {
+		@Override
+		public void
+		intervalAdded(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.max(e.getIndex0(), e.getIndex1());
+			modelToViewValid = false;
+			
+			if(first < 0) reset();
+			else sourceIntervalAdded(first, last);
+		}
+		
+		@Override
+		public void
+		intervalRemoved(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.max(e.getIndex0(), e.getIndex1());
+			modelToViewValid = false;
+			
+			if(first < 0) reset();
+			else sourceIntervalRemoved(first, last);
+		}
+		
+		@Override
+		public void
+		contentsChanged(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.min(Math.max(e.getIndex0(), e.getIndex1()), sourceModel.getSize() - 1);
+			
+			if(first < 0) reset();
+			else if(first <= last) sourceContentsChanged(first, last);
+		}
+	};
+	
+	/**
+	 * Creates a new instance of <code>AbstractComponentListViewModel</code>.
+	 * The subclasses should initialize the rows with {@link #setRows}.
+	 * @param sourceModel The model whose components are presented.
+	 */
+	protected
+	AbstractComponentListViewModel(ComponentListModel<C> sourceModel) {
+		if(sourceModel == null) throw new IllegalArgumentException("sourceModel can't be null");
+		
+		this.sourceModel = sourceModel;
+		sourceModel.addListDataListener(handler);
+	}
+	
+	/**
+	 * Gets the model whose components are presented by this view model.
+	 * @return The source model.
+	 */
+	public ComponentListModel<C>
+	getSourceModel() { return sourceModel; }
+	
+	/**
+	 * Stops listening for changes of the source model. This method should be
+	 * invoked when the view model is no longer used but the source model is.
+	 */
+	public void
+	dispose() { sourceModel.removeListDataListener(handler); }
+	
+	/**
+	 * Converts the specified view index to a source model index.
+	 * @param viewIndex The index of a row in the view.
+	 * @return The index of the corresponding component in the source model.
+	 * @throws ArrayIndexOutOfBoundsException If the index is out of range.
+	 */
+	public int
+	convertRowIndexToModel(int viewIndex) {
+		if(viewIndex < 0 || viewIndex >= rowCount) {
+			throw new ArrayIndexOutOfBoundsException(viewIndex + " >= " + rowCount);
+		}
+		
+		return viewToModel[viewIndex];
+	}
+	
+	/**
+	 * Converts the specified source model index to a view index.
+	 * @param modelIndex The index of a component in the source model.
+	 * @return The index of the corresponding row in the view or -1
+	 * if the component is not in the view.
+	 */
+	public int
+	convertRowIndexToView(int modelIndex) {
+		if(!modelToViewValid) {
+			int n = sourceModel.getSize();
+			if(modelToView.length < n) modelToView = new int[Math.max(n, modelToView.length * 2)];
+			
+			Arrays.fill(modelToView, 0, n, -1);
+			
+			for(int i = 0; i < rowCount; i++) {
+				// skip the rows being removed while the listeners are notified
+				if(viewToModel[i] < n) modelToView[viewToModel[i]] = i;
+			}
+			
+			modelToViewValid = true;
+		}
+		
+		if(modelIndex < 0 || modelIndex >= sourceModel.getSize()) return -1;
+		return modelToView[modelIndex];
+	}
+	
+	/**
+	 * Invoked when components are inserted into the source
+	 * model. The indices of the view model are not updated yet.
+	 */
+	protected abstract void sourceIntervalAdded(int first, int last);
+	
+	/**
+	 * Invoked when components are removed from the source
+	 * model. The indices of the view model are not updated yet.
+	 */
+	protected abstract void sourceIntervalRemoved(int first, int last);
+	
+	/**
+	 * Invoked when the components in the specified interval of the
+	 * source model are replaced or their content has changed.
+	 */
+	protected abstract void sourceContentsChanged(int first, int last);
+	
+	/**
+	 * Recomputes the rows of the view. Invoked when the
+	 * source model reports a change with unknown indices.
+	 */
+	protected abstract void reset();
+	
+	/**
+	 * Replaces all rows of the view without notifying the listeners.
+	 * @param modelIndices The source model indices of the rows in view order.
+	 * @param count The number of rows.
+	 */
+	protected void
+	setRows(int[] modelIndices, int count) {
+		ensureCapacity(count);
+		System.arraycopy(modelIndices, 0, viewToModel, 0, count);
+		rowCount = count;
+		modelToViewValid = false;
+	}
+	
+	/**
+	 * Inserts rows into the view without notifying the listeners.
+	 * @param viewIndex The view index of the first inserted row.
+	 * @param modelIndices The source model indices of the inserted rows.
+	 * @param count The number of rows to insert.
+	 */
+	protected void
+	insertRows(int viewIndex, int[] modelIndices, int count) {
+		ensureCapacity(rowCount + count);
+		System.arraycopy(viewToModel, viewIndex, viewToModel, viewIndex + count, rowCount - viewIndex);
+		System.arraycopy(modelIndices, 0, viewToModel, viewIndex, count);
+		rowCount += count;
+		modelToViewValid = false;
+	}
+	
+	/**
+	 * Removes the rows in the specified interval (inclusive)
+	 * of the view without notifying the listeners.
+	 */
+	protected void
+	removeRows(int first, int last) {
+		System.arraycopy(viewToModel, last + 1, viewToModel, first, rowCount - last - 1);
+		rowCount -= last - first + 1;
+		modelToViewValid = false;
+	}
+	
+	/**
+	 * Adds the specified value to the source model indices
+	 * of the rows, which are equal to or greater than <code>modelIndex</code>.
+	 */
+	protected void
+	shiftModelIndices(int modelIndex, int delta) {
+		for(int i = 0; i < rowCount; i++) {
+			if(viewToModel[i] >= modelIndex) viewToModel[i] += delta;
+		}
+		
+		modelToViewValid = false;
+	}
+	
+	private void
+	ensureCapacity(int capacity) {
+		if(capacity <= viewToModel.length) return;
+		viewToModel = Arrays.copyOf(viewToModel, Math.max(capacity, viewToModel.length * 2));
+	}
+	
+	/**
+	 * Gets the component at the specified index of the view.
+	 * @param index The requested index.
+	 * @return The component at the specified index.
+	 * @throws ArrayIndexOutOfBoundsException If the index is out of range.
+	 */
+	@Override
+	public C
+	get(int index) { return sourceModel.get(convertRowIndexToModel(index)); }
+	
+	/**
+	 * Gets the component at the specified index of the view.
+	 * <blockquote>
+	 * <b>Note:</b> The preferred method to use is {@link #get}.
+	 * </blockquote>
+	 * @param index The requested index.
+	 * @return The component at the specified index.
+	 */
+	@Override
+	public Object
+	getElementAt(int index) { return get(index); }
+	
+	/**
+	 * Gets the view index of the specified component.
+	 * @param o The component to look for.
+	 * @return The view index of the specified component or -1
+	 * if the component is not in the view.
+	 */
+	@Override
+	public int
+	indexOf(Object o) { return convertRowIndexToView(sourceModel.indexOf(o)); }
+	
+	/**
+	 * Gets the number of rows in the view.
+	 * @return The number of rows in the view.
+	 */
+	@Override
+	public int
+	getSize() { return rowCount; }
+	
+	/**
+	 * Gets the number of rows in the view.
+	 * @return The number of rows in the view.
+	 */
+	@Override
+	public int
+	size() { return rowCount; }
+	
+	/** Adds the specified component at the end of the source model. */
+	@Override
+	public void
+	add(C c) { sourceModel.add(c); }
+	
+	/**
+	 * Inserts the specified component into the source model before the
+	 * component at the specified view index. Note that the view
+	 * determines the actual position of the component in the view.
+	 */
+	@Override
+	public void
+	insert(C c, int index) { sourceModel.insert(c, getSourceIndex(index)); }
+	
+	/** Adds the specified components at the end of the source model. */
+	@Override
+	public void
+	addAll(Collection<? extends C> c) { sourceModel.addAll(c); }
+	
+	/**
+	 * Inserts the specified components into the source model
+	 * before the component at the specified view index.
+	 */
+	@Override
+	public void
+	insertAll(Collection<? extends C> c, int index) {
+		sourceModel.insertAll(c, getSourceIndex(index));
+	}
+	
+	/** Gets the source model position corresponding to the specified view position. */
+	private int
+	getSourceIndex(int viewIndex) {
+		if(viewIndex == rowCount) return sourceModel.getSize();
+		return convertRowIndexToModel(viewIndex);
+	}
+	
+	/** Removes the specified component from the source model. */
+	@Override
+	public boolean
+	remove(C c) { return sourceModel.remove(c); }
+	
+	/** Removes the component at the specified view index from the source model. */
+	@Override
+	public C
+	remove(int index) { return sourceModel.remove(convertRowIndexToModel(index)); }
+	
+	/**
+	 * Removes the components in the specified interval of the view (inclusive)
+	 * from the source model. The changes are made in a single batch.
+	 */
+	@Override
+	public void
+	removeRange(int fromIndex, int toIndex) {
+		if(fromIndex > toIndex) {
+			throw new IllegalArgumentException("fromIndex must be less or equal to toIndex");
+		}
+		
+		int[] indices = new int[toIndex - fromIndex + 1];
+		for(int i = fromIndex; i <= toIndex; i++) indices[i - fromIndex] = convertRowIndexToModel(i);
+		Arrays.sort(indices);
+		
+		sourceModel.beginBatch();
+		try { for(int i = indices.length - 1; i >= 0; i--) sourceModel.remove(indices[i]); }
+		finally { sourceModel.endBatch(); }
+	}
+	
+	/** Replaces the content of the source model with the specified components. */
+	@Override
+	public void
+	replaceAll(Collection<? extends C> c) { sourceModel.replaceAll(c); }
+	
+	/** Replaces the component at the specified view index in the source model. */
+	@Override
+	public C
+	set(int index, C c) { return sourceModel.set(convertRowIndexToModel(index), c); }
+	
+	/** Determines whether the components can be moved through the source model. */
+	@Override
+	public boolean
+	isMoveSupported() { return sourceModel.isMoveSupported(); }
+	
+	/** Moves the specified component one position up in the view. */
+	@Override
+	public void
+	moveUp(C c) {
+		int idx = indexOf(c);
+		if(idx > 0) move(idx, idx - 1);
+	}
+	
+	/** Moves the specified component one position down in the view. */
+	@Override
+	public void
+	moveDown(C c) {
+		int idx = indexOf(c);
+		if(idx != -1 && idx < rowCount - 1) move(idx, idx + 1);
+	}
+	
+	/**
+	 * Moves the component at the specified view position to the
+	 * source model position of the component at the new view position.
+	 */
+	@Override
+	public void
+	move(int from, int to) {
+		sourceModel.move(convertRowIndexToModel(from), convertRowIndexToModel(to));
+	}
+}
\ No newline at end of file
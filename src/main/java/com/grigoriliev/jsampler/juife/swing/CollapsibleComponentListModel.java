@@ -0,0 +1,64 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+
+/**
+ * A <code>ComponentList</code> data model which presents its rows in groups that can be
+ * collapsed and expanded. The list uses this interface to collapse and expand the group
+ * of the selected row from the keyboard.
+ * @see GroupedComponentListModel
+ * @author Grigor Iliev
+ */
+public interface CollapsibleComponentListModel<C extends Component> extends ReadOnlyComponentListModel<C> {
+	/**
+	 * Gets the key of the group the row at the specified index belongs to.
+	 * @param index The index of a row.
+	 * @return The key of the group.
+	 * @throws ArrayIndexOutOfBoundsException If the index is out of range.
+	 */
+	public Object getGroupKey(int index);
+	
+	/**
+	 * Gets the index of the header row of the specified group.
+	 * @param key The key of the group.
+	 * @return The index of the header or -1 if there is no such group.
+	 */
+	public int getHeaderIndex(Object key);
+	
+	/**
+	 * Determines whether the specified group is collapsed.
+	 * @param key The key of the group.
+	 */
+	public boolean isCollapsed(Object key);
+	
+	/**
+	 * Collapses or expands the specified group.
+	 * @param key The key of the group.
+	 * @param b Specifies whether the group should be collapsed.
+	 */
+	public void setCollapsed(Object key, boolean b);
+}
\ No newline at end of file
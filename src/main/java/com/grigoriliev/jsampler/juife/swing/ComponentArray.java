@@ -0,0 +1,130 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+
+/**
+ * An unsynchronized, array-backed list used as storage of <code>DefaultComponentListModel</code>.
+ * Like <code>Vector</code>, this list throws <code>ArrayIndexOutOfBoundsException</code>
+ * when accessed with invalid index.
+ * @author Grigor Iliev
+ */
+class ComponentArray<E> extends AbstractList<E> implements RandomAccess {
+	private Object[] elements = new Object[16];
+	private int size = 0;
+	
+	/** Creates a new instance of <code>ComponentArray</code>. */
+	ComponentArray() { }
+	
+	@Override
+	public int
+	size() { return size; }
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public E
+	get(int index) {
+		if(index >= size) throw new ArrayIndexOutOfBoundsException(index + " >= " + size);
+		return (E)elements[index];
+	}
+	
+	@Override
+	public E
+	set(int index, E e) {
+		E old = get(index);
+		elements[index] = e;
+		return old;
+	}
+	
+	@Override
+	public void
+	add(int index, E e) {
+		checkPosition(index);
+		ensureCapacity(size + 1);
+		
+		System.arraycopy(elements, index, elements, index + 1, size - index);
+		elements[index] = e;
+		size++;
+		modCount++;
+	}
+	
+	@Override
+	public boolean
+	addAll(int index, Collection<? extends E> c) {
+		checkPosition(index);
+		
+		Object[] a = c.toArray();
+		if(a.length == 0) return false;
+		ensureCapacity(size + a.length);
+		
+		System.arraycopy(elements, index, elements, index + a.length, size - index);
+		System.arraycopy(a, 0, elements, index, a.length);
+		size += a.length;
+		modCount++;
+		
+		return true;
+	}
+	
+	@Override
+	public boolean
+	addAll(Collection<? extends E> c) { return addAll(size, c); }
+	
+	@Override
+	public E
+	remove(int index) {
+		E e = get(index);
+		removeRange(index, index + 1);
+		return e;
+	}
+	
+	@Override
+	public void
+	clear() { removeRange(0, size); }
+	
+	@Override
+	protected void
+	removeRange(int fromIndex, int toIndex) {
+		System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);
+		
+		int newSize = size - (toIndex - fromIndex);
+		Arrays.fill(elements, newSize, size, null);
+		size = newSize;
+		modCount++;
+	}
+	
+	private void
+	checkPosition(int index) {
+		if(index < 0 || index > size) throw new ArrayIndexOutOfBoundsException(index + " > " + size);
+	}
+	
+	private void
+	ensureCapacity(int capacity) {
+		if(capacity <= elements.length) return;
+		elements = Arrays.copyOf(elements, Math.max(capacity, elements.length * 2));
+	}
+}
\ No newline at end of file
@@ -28,9 +28,9 @@ import java.awt.BorderLayout;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
-import java.util.Vector;
+import java.util.Arrays;
+import java.util.function.Function;
 
-import javax.swing.DefaultListSelectionModel;
 import javax.swing.JPanel;
 import javax.swing.ListSelectionModel;
 import javax.swing.UIManager;
@@ -62,11 +62,18 @@ public class ComponentList extends JPanel {
 	}
 	private static final String uiClassID = "ComponentListUI";
 	
-	private ComponentListModel dataModel;
+	private ReadOnlyComponentListModel rowModel;
 	private ListSelectionModel selectionModel;
 	private final ListSelectionListener selectionHandler;
 	
 	private boolean autoUpdate = true;
+	private boolean virtualized = false;
+	private int overscan = 2;
+	private boolean scrollAnchoring = true;
+	private boolean rowSnapshotCaching = false;
+	private boolean dragReordering = false;
+	private boolean lassoSelection = false;
+	private Function<? super Component, String> typeAheadExtractor = null;
 	
 	/** Creates a new instance of <code>ComponentList</code> */
 	public
@@ -80,8 +87,8 @@ public class ComponentList extends JPanel {
 	ComponentList(ComponentListModel model) {
 		super(new BorderLayout());
 		
-		dataModel = model;
-		selectionModel = new DefaultListSelectionModel();
+		rowModel = model;
+		selectionModel = new ComponentListSelectionModel();
 		
 		selectionHandler = new ListSelectionListener() {
 			public void
@@ -157,6 +164,44 @@ public class ComponentList extends JPanel {
 		listenerList.remove(ListSelectionListener.class, listener);
 	}
 	
+	/**
+	 * Registers the specified listener to be notified about the
+	 * components whose selection state has changed.
+	 * @param l The <code>ComponentSelectionListener</code> to register.
+	 */
+	public void
+	addComponentSelectionListener(ComponentSelectionListener l) {
+		listenerList.add(ComponentSelectionListener.class, l);
+	}
+	
+	/**
+	 * Removes the specified listener.
+	 * @param l The <code>ComponentSelectionListener</code> to remove.
+	 */
+	public void
+	removeComponentSelectionListener(ComponentSelectionListener l) {
+		listenerList.remove(ComponentSelectionListener.class, l);
+	}
+	
+	/**
+	 * Notifies the registered <code>ComponentSelectionListener</code>s
+	 * that the selection state of the specified components has changed.
+	 * @param indices The indices whose selection state has changed, in increasing order.
+	 * @param isAdjusting Specifies whether this is one in a series of multiple events.
+	 */
+	public void
+	fireComponentSelectionChanged(int[] indices, boolean isAdjusting) {
+		ComponentSelectionEvent e = null;
+		Object[] listeners = listenerList.getListenerList();
+		
+		for(int i = listeners.length - 2; i >= 0; i -= 2) {
+			if(listeners[i] == ComponentSelectionListener.class) {
+				if(e == null) e = new ComponentSelectionEvent(this, indices, isAdjusting);
+				((ComponentSelectionListener)listeners[i + 1]).componentSelectionChanged(e);
+			}
+		}
+	}
+	
 	/**
 	 * Notifies <code>ComponentList</code> <code>ListSelectionListener</code>s that
 	 * the selection model has changed.
@@ -183,10 +228,13 @@ public class ComponentList extends JPanel {
 	
 	/**
 	 * Gets the data model of this list.
-	 * @return The data model of this list.
+	 * @return The data model of this list or <code>null</code> if the list
+	 * displays a read-only row model (see {@link #setRowModel}).
 	 */
 	public ComponentListModel
-	getModel() { return dataModel; }
+	getModel() {
+		return rowModel instanceof ComponentListModel ? (ComponentListModel)rowModel : null;
+	}
 	
 	
 	/**
@@ -196,9 +244,34 @@ public class ComponentList extends JPanel {
 	public void
 	setModel(ComponentListModel model) {
 		if(model == null) throw new IllegalArgumentException("model can't be null");
-		ComponentListModel oldModel = dataModel;
-		dataModel = model;
-		firePropertyChange("model", oldModel, dataModel);
+		setRowModel(model);
+	}
+	
+	/**
+	 * Gets the model of the components displayed by this list. This is the data model
+	 * of the list, unless a model whose components can't be changed through it is set
+	 * with {@link #setRowModel}.
+	 * @return The model of the components displayed by this list.
+	 */
+	public ReadOnlyComponentListModel
+	getRowModel() { return rowModel; }
+	
+	/**
+	 * Sets the model of the components displayed by this list. Unlike {@link #setModel},
+	 * this method accepts models whose components are derived from another model and
+	 * can't be changed through them, like <code>GroupedComponentListModel</code>.
+	 * If the specified model is not a <code>ComponentListModel</code>,
+	 * {@link #getModel} returns <code>null</code>.
+	 * @param model The new row model.
+	 */
+	public void
+	setRowModel(ReadOnlyComponentListModel model) {
+		if(model == null) throw new IllegalArgumentException("model can't be null");
+		ComponentListModel oldModel = getModel();
+		ReadOnlyComponentListModel oldRowModel = rowModel;
+		rowModel = model;
+		firePropertyChange("rowModel", oldRowModel, rowModel);
+		firePropertyChange("model", oldModel, getModel());
 		clearSelection();
 	}
 	
@@ -288,7 +361,7 @@ public class ComponentList extends JPanel {
 	 */
 	public void
 	setSelectedIndex(int index) {
-		if(index < 0 || index > getModel().getSize()) return;
+		if(index < 0 || index > getRowModel().getSize()) return;
 		getSelectionModel().setSelectionInterval(index, index);
 	}
 	
@@ -299,18 +372,18 @@ public class ComponentList extends JPanel {
 	public int[]
 	getSelectedIndices() {
 		ListSelectionModel m = getSelectionModel();
+		if(m instanceof ComponentListSelectionModel) return m.getSelectedIndices();
+		
 		int i = m.getMinSelectionIndex();
 		int j = m.getMaxSelectionIndex();
 		
 		if(i < 0 || j < 0) return new int[0];
 		
-		Vector<Integer> v = new Vector<Integer>((j - i) + 1);
-		for(int a = i; a <= j; a++) if(m.isSelectedIndex(a)) v.add(a);
-		
-		int[] res = new int[v.size()];
-		for(int a = 0; a < v.size(); a++) res[a] = v.get(a);
+		int[] res = new int[(j - i) + 1];
+		int n = 0;
+		for(int a = i; a <= j; a++) if(m.isSelectedIndex(a)) res[n++] = a;
 		
-		return res;
+		return n == res.length ? res : Arrays.copyOf(res, n);
 	}
 	
 	/**
@@ -323,7 +396,7 @@ public class ComponentList extends JPanel {
 		m.clearSelection();
 		
 		for(int i : indices)
-			if(i < getModel().getSize()) m.addSelectionInterval(i, i);
+			if(i < getRowModel().getSize()) m.addSelectionInterval(i, i);
 	}
 	
 	/**
@@ -333,18 +406,12 @@ public class ComponentList extends JPanel {
 	 */
 	public Component[]
 	getSelectedComponents() {
-		ListSelectionModel m = getSelectionModel();
-		int i = m.getMinSelectionIndex();
-		int j = m.getMaxSelectionIndex();
-		
-		if(i < 0 || j < 0) return new Component[0];
-		
-		Vector<Component> v = new Vector<Component>((j - i) + 1);
+		int[] indices = getSelectedIndices();
+		Component[] res = new Component[indices.length];
 		
-		for(int a = i; a <= j; a++)
-			if(m.isSelectedIndex(a)) v.add(getModel().get(a));
+		for(int a = 0; a < indices.length; a++) res[a] = getRowModel().get(indices[a]);
 		
-		return v.toArray(new Component[v.size()]);
+		return res;
 	}
 	
 	/**
@@ -356,19 +423,19 @@ public class ComponentList extends JPanel {
 	 */
 	public void
 	setSelectedComponent(Component c, boolean shouldScroll) {
-		ComponentListModel clm = getModel();
+		ReadOnlyComponentListModel clm = getRowModel();
 		
 		if(c == null) {
 			clearSelection();
 			return;
 		}
 		
-		for(int i = 0; i < clm.getSize(); i++) {
-			if(c.equals(clm.get(i))) {
-				setSelectedIndex(i);
-				if(shouldScroll) ensureIndexIsVisible(i);
-				return;
-			}
+		int i = clm.indexOf(c);
+		
+		if(i != -1) {
+			setSelectedIndex(i);
+			if(shouldScroll) ensureIndexIsVisible(i);
+			return;
 		}
 		
 		clearSelection();
@@ -380,8 +447,8 @@ public class ComponentList extends JPanel {
 		if(getSelectionModel().getSelectionMode() == ListSelectionModel.SINGLE_SELECTION)
 			return;
 		
-		if(getModel().getSize() == 0) return;
-		getSelectionModel().setSelectionInterval(0, getModel().getSize() - 1);
+		if(getRowModel().getSize() == 0) return;
+		getSelectionModel().setSelectionInterval(0, getRowModel().getSize() - 1);
 	}
 	
 	/**
@@ -393,6 +460,8 @@ public class ComponentList extends JPanel {
 	
 	/**
 	 * Scrolls the viewport to make the specified component visible.
+	 * The scrolling is deferred until the pending layout of the list is complete,
+	 * so there is no need to validate the list before invoking this method.
 	 * @param index The index of the component to make visible.
 	 */
 	public void
@@ -401,7 +470,9 @@ public class ComponentList extends JPanel {
 	/**
 	 * Determines whether the component list should be automatically updated
 	 * when component is added/removed. The default value is <code>true</code>.
+	 * The changes are applied once per event dispatching cycle.
 	 * @see #updateList()
+	 * @see #flushPendingUpdates()
 	 */
 	public boolean
 	getAutoUpdate() { return autoUpdate; }
@@ -414,6 +485,201 @@ public class ComponentList extends JPanel {
 	public void
 	setAutoUpdate(boolean b) { autoUpdate = b; }
 	
+	/**
+	 * Determines whether only the components intersecting the visible area
+	 * of the enclosing viewport are added to the list. The default value is <code>false</code>.
+	 * @see #setVirtualized(boolean)
+	 */
+	public boolean
+	isVirtualized() { return virtualized; }
+	
+	/**
+	 * Determines whether only the components intersecting the visible area
+	 * of the enclosing viewport (plus the overscan) should be added to the list.
+	 * The rest of the components are represented by their cached or estimated heights,
+	 * so that the layout and painting cost doesn't grow with the size of the list.
+	 * This is useful for very large lists placed in a <code>JScrollPane</code>.
+	 * @param b Specifies whether the list should be virtualized.
+	 * @see #setOverscan(int)
+	 */
+	public void
+	setVirtualized(boolean b) {
+		if(virtualized == b) return;
+		virtualized = b;
+		firePropertyChange("virtualized", !b, b);
+	}
+	
+	/**
+	 * Gets the number of components above and below the visible area,
+	 * which are added to the list when the list is virtualized.
+	 * @see #setOverscan(int)
+	 */
+	public int
+	getOverscan() { return overscan; }
+	
+	/**
+	 * Sets the number of components above and below the visible area,
+	 * which should be added to the list when the list is virtualized.
+	 * The default value is 2.
+	 * @param rows The number of rows to add above and below the visible area.
+	 * @see #setVirtualized(boolean)
+	 */
+	public void
+	setOverscan(int rows) {
+		if(rows < 0) throw new IllegalArgumentException("overscan can't be negative");
+		if(overscan == rows) return;
+		int old = overscan;
+		overscan = rows;
+		firePropertyChange("overscan", old, rows);
+	}
+	
+	/**
+	 * Determines whether the visible content of the enclosing viewport is kept in place
+	 * when components are inserted or removed before it. The default value is <code>true</code>.
+	 * @see #setScrollAnchoring(boolean)
+	 */
+	public boolean
+	getScrollAnchoring() { return scrollAnchoring; }
+	
+	/**
+	 * Sets whether the visible content of the enclosing viewport should be kept in place
+	 * when components are inserted or removed before it. When enabled, the first visible
+	 * component and its offset from the top of the viewport are recorded before the
+	 * changes are applied and the view position is compensated in the same layout pass,
+	 * so the visible components don't jump. The anchoring is not applied when
+	 * the viewport is scrolled to the top of the list.
+	 * @param b Specifies whether the scroll anchoring should be enabled.
+	 */
+	public void
+	setScrollAnchoring(boolean b) {
+		if(scrollAnchoring == b) return;
+		scrollAnchoring = b;
+		firePropertyChange("scrollAnchoring", !b, b);
+	}
+	
+	/**
+	 * Determines whether the rows which haven't changed are painted from cached images.
+	 * The default value is <code>false</code>.
+	 * @see #setRowSnapshotCaching(boolean)
+	 */
+	public boolean
+	getRowSnapshotCaching() { return rowSnapshotCaching; }
+	
+	/**
+	 * Sets whether the rows which haven't changed should be painted from cached images
+	 * instead of painting their component trees. The image of a row is updated when
+	 * the row or some of its descendants is repainted or invalidated, or when the size,
+	 * the selection state or the graphics scale of the row changes. The repaint requests
+	 * are tracked with a custom <code>RepaintManager</code>, which is installed when the
+	 * caching is first enabled and is replaced with the original one when no list uses
+	 * the caching. If another custom <code>RepaintManager</code> is installed, the rows
+	 * are painted directly. The least recently used images are discarded when their
+	 * total size exceeds a fixed budget. Note that the rows are expected to report
+	 * their changes with <code>repaint</code> or <code>invalidate</code> - a row updated
+	 * only with <code>paintImmediately</code> would be painted from an outdated image.
+	 * @param b Specifies whether the row images should be cached.
+	 */
+	public void
+	setRowSnapshotCaching(boolean b) {
+		if(rowSnapshotCaching == b) return;
+		rowSnapshotCaching = b;
+		firePropertyChange("rowSnapshotCaching", !b, b);
+	}
+	
+	/**
+	 * Determines whether the selected components can be reordered by dragging them
+	 * with the mouse. The default value is <code>false</code>.
+	 * @see #setDragReordering(boolean)
+	 */
+	public boolean
+	getDragReordering() { return dragReordering; }
+	
+	/**
+	 * Sets whether the selected components can be reordered by dragging them with the mouse.
+	 * When enabled, dragging a selected component moves all selected components to
+	 * the drop position, using {@link ComponentListModel#move(int, int, int)} in a single
+	 * batch, so the change is reported with a single event and the moved components
+	 * stay selected. The components can be reordered only if the data model is
+	 * a <code>ComponentListModel</code> which supports moving the components
+	 * (see {@link ComponentListModel#isMoveSupported}).
+	 * @param b Specifies whether the components can be reordered by dragging.
+	 */
+	public void
+	setDragReordering(boolean b) {
+		if(dragReordering == b) return;
+		dragReordering = b;
+		firePropertyChange("dragReordering", !b, b);
+	}
+	
+	/**
+	 * Determines whether the components can be selected by dragging a rectangle
+	 * with the mouse. The default value is <code>false</code>.
+	 * @see #setLassoSelection(boolean)
+	 */
+	public boolean
+	getLassoSelection() { return lassoSelection; }
+	
+	/**
+	 * Sets whether the components can be selected by dragging a rectangle with the mouse.
+	 * When enabled, dragging the mouse from a component or from the empty area of the list
+	 * selects the components intersecting the dragged rectangle. With the control key down,
+	 * the components are added to the selection.
+	 * @param b Specifies whether the components can be selected by dragging.
+	 */
+	public void
+	setLassoSelection(boolean b) {
+		if(lassoSelection == b) return;
+		lassoSelection = b;
+		firePropertyChange("lassoSelection", !b, b);
+	}
+	
+	/**
+	 * Gets the function which provides the text of the components used by the
+	 * type-ahead search, or <code>null</code> if the type-ahead search is disabled.
+	 * @see #setTypeAheadExtractor(Function)
+	 */
+	public Function<? super Component, String>
+	getTypeAheadExtractor() { return typeAheadExtractor; }
+	
+	/**
+	 * Sets the function which provides the text of the components used by the type-ahead
+	 * search. When set, typing while the list or one of its components has the focus
+	 * selects the next component whose text starts with the typed characters (ignoring
+	 * the case). The texts are kept in a sorted index, which is updated incrementally
+	 * when the data model changes, so the text of a component is expected to change
+	 * only along with a data model event reporting the change of that component.
+	 * @param extractor The function providing the text of a component
+	 * (which may return <code>null</code> if the component should not be
+	 * found) or <code>null</code> to disable the type-ahead search.
+	 */
+	public void
+	setTypeAheadExtractor(Function<? super Component, String> extractor) {
+		Function<? super Component, String> old = typeAheadExtractor;
+		typeAheadExtractor = extractor;
+		firePropertyChange("typeAheadExtractor", old, extractor);
+	}
+	
+	/**
+	 * Determines whether the type-ahead search is enabled.
+	 * @return <code>true</code> if a type-ahead extractor is set.
+	 * @see #setTypeAheadExtractor(Function)
+	 */
+	public boolean
+	isTypeAheadEnabled() { return typeAheadExtractor != null; }
+	
+	/**
+	 * Gets the text of the component at the specified index, used by the type-ahead
+	 * search. The default implementation applies the type-ahead extractor to the component.
+	 * @param index The index of the component.
+	 * @return The text of the component or <code>null</code> if the component
+	 * should not be found or the type-ahead search is disabled.
+	 */
+	public String
+	getTypeAheadText(int index) {
+		if(typeAheadExtractor == null) return null;
+		return typeAheadExtractor.apply(getRowModel().get(index));
+	}
+	
 	/**
 	 * Updates the component list UI.
 	 * @see #setAutoUpdate(boolean)
@@ -422,16 +688,31 @@ public class ComponentList extends JPanel {
 	updateList() { getUI().updateList(); }
 	
 	/**
-	 * Notifies all listeners that have registered interest for notification on this event type.
+	 * When the auto update is enabled, the changes of the data model are merged
+	 * and applied to the list once per event dispatching cycle. This method applies
+	 * the pending changes immediately, which is useful when the layout of
+	 * the list is needed right after the data model is changed.
+	 * @see #setAutoUpdate(boolean)
+	 */
+	public void
+	flushPendingUpdates() { getUI().flushPendingUpdates(); }
+	
+	/**
+	 * Notifies the <code>selectionProbablyChanged</code> property change listeners
+	 * of the component at the specified index that its selection state has changed.
+	 * The UI invokes this method only for the components whose selection state
+	 * has actually changed.
 	 */
 	public void
 	fireSelectionProbablyChanged(int index) {
-		if(index >= getModel().getSize()) return;
+		if(index >= getRowModel().getSize()) return;
 		
-		Component c = getModel().get(index);
+		Component c = getRowModel().get(index);
 		PropertyChangeListener[] listeners = 
 			c.getPropertyChangeListeners("selectionProbablyChanged");
-				
+		
+		if(listeners.length == 0) return;
+		
 		PropertyChangeEvent e = new PropertyChangeEvent (
 			this,
 			"selectionProbablyChanged",
@@ -0,0 +1,166 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+
+/**
+ * Computes and applies the edit script, which transforms the content of a
+ * <code>ComponentListModel</code> into a new sequence of components.
+ * The old and the new components are matched by identity or by key and the
+ * longest common subsequence of the matched components is kept, so that
+ * only the rows which are actually added or removed are reported as such.
+ * <p>Because each component (or key) occurs in a sequence at most once in practice,
+ * the longest common subsequence is computed as the longest increasing subsequence
+ * of the new positions of the old components in <code>O(n log n)</code> time.
+ * Duplicate keys are matched in order of occurrence.</p>
+ * @see ComponentListModel#replaceContents(java.util.Collection, Function)
+ * @author Grigor Iliev
+ */
+class ComponentListDiff {
+	private ComponentListDiff() { }
+	
+	/**
+	 * Replaces the content of the specified model with the specified components.
+	 * Each contiguous run of removed or inserted components is reported with a
+	 * single event and the kept components with different identity are replaced.
+	 * @param key Extracts the keys by which the components are matched
+	 * or <code>null</code> to match the components by identity.
+	 */
+	static <C extends Component> void
+	replaceContents(ComponentListModel<C> model, List<? extends C> list, Function<? super C, ?> key) {
+		int n = model.getSize();
+		int m = list.size();
+		int[] newToOld = match(model, list, key);
+		
+		boolean[] kept = new boolean[n];
+		for(int i : newToOld) if(i != -1) kept[i] = true;
+		
+		// remove the old components which are not kept, starting from the end
+		for(int i = n - 1; i >= 0; ) {
+			if(kept[i]) {
+				i--;
+				continue;
+			}
+			
+			int j = i;
+			while(j > 0 && !kept[j - 1]) j--;
+			
+			model.removeRange(j, i);
+			i = j - 1;
+		}
+		
+		// insert the new components between the kept ones
+		for(int j = 0; j < m; ) {
+			if(newToOld[j] != -1) {
+				if(model.get(j) != list.get(j)) model.set(j, list.get(j));
+				j++;
+				continue;
+			}
+			
+			int k = j;
+			while(k < m && newToOld[k] == -1) k++;
+			
+			model.insertAll(list.subList(j, k), j);
+			j = k;
+		}
+	}
+	
+	/**
+	 * Matches the components of the model with the new components.
+	 * @return The positions in the model of the kept components in the
+	 * new sequence or -1 for the components to be inserted.
+	 */
+	private static <C extends Component> int[]
+	match(ComponentListModel<C> model, List<? extends C> list, Function<? super C, ?> key) {
+		int n = model.getSize();
+		int m = list.size();
+		
+		Map<Object, ArrayDeque<Integer>> positions;
+		if(key == null) positions = new IdentityHashMap<Object, ArrayDeque<Integer>>();
+		else positions = new HashMap<Object, ArrayDeque<Integer>>();
+		
+		for(int j = 0; j < m; j++) {
+			Object k = key == null ? list.get(j) : key.apply(list.get(j));
+			ArrayDeque<Integer> q = positions.get(k);
+			if(q == null) positions.put(k, q = new ArrayDeque<Integer>(1));
+			q.add(j);
+		}
+		
+		int[] oldToNew = new int[n];
+		
+		for(int i = 0; i < n; i++) {
+			Object k = key == null ? model.get(i) : key.apply(model.get(i));
+			ArrayDeque<Integer> q = positions.get(k);
+			oldToNew[i] = q == null || q.isEmpty() ? -1 : q.poll();
+		}
+		
+		int[] newToOld = new int[m];
+		Arrays.fill(newToOld, -1);
+		
+		for(int i : getLongestIncreasingSubsequence(oldToNew)) newToOld[oldToNew[i]] = i;
+		
+		return newToOld;
+	}
+	
+	/**
+	 * Gets the indices of the longest strictly increasing subsequence
+	 * of the non-negative values in the specified array.
+	 */
+	private static int[]
+	getLongestIncreasingSubsequence(int[] a) {
+		// tails[k] is the index of the smallest tail of an increasing subsequence of length k + 1
+		int[] tails = new int[a.length];
+		int[] prev = new int[a.length];
+		int len = 0;
+		
+		for(int i = 0; i < a.length; i++) {
+			if(a[i] < 0) continue;
+			
+			int lo = 0, hi = len;
+			while(lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if(a[tails[mid]] < a[i]) lo = mid + 1;
+				else hi = mid;
+			}
+			
+			prev[i] = lo > 0 ? tails[lo - 1] : -1;
+			tails[lo] = i;
+			if(lo == len) len++;
+		}
+		
+		int[] res = new int[len];
+		for(int k = len - 1, i = len > 0 ? tails[len - 1] : -1; k >= 0; k--, i = prev[i]) res[k] = i;
+		
+		return res;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,244 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+
+/**
+ * A map from keys to the positions of the list elements with these keys, which is
+ * maintained incrementally on each change of the list. The keys are kept in the
+ * order of the list in a randomized balanced tree (a treap ordered by position)
+ * and each key is mapped to its tree node, whose position is computed from the
+ * sizes of the subtrees on the path to the root. So the lookups, as well as the
+ * insertions, removals and replacements of elements at any position, take
+ * <code>O(log n)</code> expected time.
+ * <p>Note that if several elements have the same key, the lookup
+ * takes time proportional to the number of these elements.</p>
+ * @author Grigor Iliev
+ */
+class ComponentListIndex<K> {
+	/** The nodes mapped by key (the nodes with the same key are linked through <code>sameKey</code>). */
+	private final Map<Object, Node> map;
+	private final Random random = new Random();
+	private Node root = null;
+	
+	/** The results of the last split. */
+	private Node splitLeft, splitRight;
+	
+	/**
+	 * Creates a new instance of <code>ComponentListIndex</code>.
+	 * @param identity Specifies whether the keys should be compared
+	 * by reference (<code>true</code>) or with <code>equals</code>.
+	 */
+	ComponentListIndex(boolean identity) {
+		map = identity ? new IdentityHashMap<Object, Node>() : new HashMap<Object, Node>();
+	}
+	
+	/**
+	 * Gets the position of the element with the specified key.
+	 * @param key The key to look for.
+	 * @return The position of the first element with the specified key or -1 if not found.
+	 */
+	public int
+	indexOf(Object key) {
+		int idx = -1;
+		
+		for(Node n = map.get(key); n != null; n = n.sameKey) {
+			int pos = getPosition(n);
+			if(idx == -1 || pos < idx) idx = pos;
+		}
+		
+		return idx;
+	}
+	
+	/**
+	 * This method should be invoked after elements are inserted into the list.
+	 * @param index The position of the first inserted element.
+	 * @param count The number of the inserted elements.
+	 * @param keyAt Provides the key of the element at the specified position.
+	 */
+	public void
+	inserted(int index, int count, IntFunction<? extends K> keyAt) {
+		Node block = null;
+		
+		for(int i = index; i < index + count; i++) {
+			Node n = new Node(keyAt.apply(i), random.nextInt());
+			link(n);
+			block = merge(block, n);
+		}
+		
+		split(root, index);
+		Node right = splitRight;
+		root = merge(merge(splitLeft, block), right);
+	}
+	
+	/** This method should be invoked after the element at the specified position is removed. */
+	public void
+	removed(int index) {
+		split(root, index);
+		Node left = splitLeft;
+		split(splitRight, 1);
+		Node right = splitRight;
+		
+		if(splitLeft != null) unlink(splitLeft);
+		root = merge(left, right);
+	}
+	
+	/**
+	 * This method should be invoked after the element at the specified
+	 * position is replaced with an element with the specified key.
+	 */
+	public void
+	replaced(int index, K key) {
+		Node n = root;
+		
+		for(;;) {
+			int l = size(n.left);
+			if(index == l) break;
+			
+			if(index < l) {
+				n = n.left;
+			} else {
+				index -= l + 1;
+				n = n.right;
+			}
+		}
+		
+		unlink(n);
+		n.key = key;
+		link(n);
+	}
+	
+	/** Removes all keys from the index. */
+	public void
+	clear() {
+		map.clear();
+		root = null;
+	}
+	
+	private static int
+	size(Node n) { return n == null ? 0 : n.size; }
+	
+	private static int
+	getPosition(Node n) {
+		int pos = size(n.left);
+		
+		for(Node p = n; p.parent != null; p = p.parent) {
+			if(p == p.parent.right) pos += size(p.parent.left) + 1;
+		}
+		
+		return pos;
+	}
+	
+	private static void
+	update(Node n) {
+		n.size = size(n.left) + size(n.right) + 1;
+		if(n.left != null) n.left.parent = n;
+		if(n.right != null) n.right.parent = n;
+	}
+	
+	/**
+	 * Splits the specified tree into <code>splitLeft</code>, containing the first
+	 * <code>count</code> nodes, and <code>splitRight</code>, containing the rest.
+	 */
+	private void
+	split(Node t, int count) {
+		if(t == null) {
+			splitLeft = splitRight = null;
+			return;
+		}
+		
+		t.parent = null;
+		
+		if(size(t.left) >= count) {
+			split(t.left, count);
+			t.left = splitRight;
+			update(t);
+			splitRight = t;
+		} else {
+			split(t.right, count - size(t.left) - 1);
+			t.right = splitLeft;
+			update(t);
+			splitLeft = t;
+		}
+	}
+	
+	/** Concatenates the specified trees. */
+	private static Node
+	merge(Node a, Node b) {
+		if(a == null) return b;
+		if(b == null) return a;
+		
+		if(a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			update(a);
+			return a;
+		}
+		
+		b.left = merge(a, b.left);
+		update(b);
+		return b;
+	}
+	
+	private void
+	link(Node n) {
+		n.sameKey = map.get(n.key);
+		map.put(n.key, n);
+	}
+	
+	private void
+	unlink(Node n) {
+		Node head = map.get(n.key);
+		
+		if(head == n) {
+			if(n.sameKey == null) map.remove(n.key);
+			else map.put(n.key, n.sameKey);
+		} else if(head != null) {
+			Node p = head;
+			while(p.sameKey != null && p.sameKey != n) p = p.sameKey;
+			if(p.sameKey == n) p.sameKey = n.sameKey;
+		}
+		
+		n.sameKey = null;
+	}
+	
+	private static class Node {
+		Object key;
+		final int priority;
+		int size = 1;
+		Node left, right, parent;
+		
+		/** The next node with the same key or <code>null</code>. */
+		Node sameKey;
+		
+		Node(Object key, int priority) {
+			this.key = key;
+			this.priority = priority;
+		}
+	}
+}
\ No newline at end of file
@@ -22,16 +22,19 @@
 
 package com.grigoriliev.jsampler.juife.swing;
 
-import javax.swing.ListModel;
-
 import java.awt.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Function;
+
 
 /**
- * This interface defines the data model for <code>ComponentList</code>.
+ * This interface defines the data model for <code>ComponentList</code>
+ * whose components can be changed through the model.
  * @author Grigor Iliev
  */
-public interface ComponentListModel<C extends Component> extends ListModel {
+public interface ComponentListModel<C extends Component> extends ReadOnlyComponentListModel<C> {
 	/**
 	 * Adds the specified component at the end of the list.
 	 * @param c The component to be added.
@@ -46,6 +49,32 @@ public interface ComponentListModel<C extends Component> extends ListModel {
 	 */
 	public void insert(C c, int index);
 	
+	/**
+	 * Adds the specified components at the end of the list.
+	 * The change is reported with a single event. The default implementation
+	 * invokes {@link #insertAll} with the size of the list as index.
+	 * @param c The components to be added.
+	 */
+	public default void
+	addAll(Collection<? extends C> c) { insertAll(c, size()); }
+	
+	/**
+	 * Inserts the specified components at the specified index.
+	 * The change is reported with a single event. The default implementation
+	 * inserts the components one by one in a single batch.
+	 * @param c The components to be inserted.
+	 * @param index The position of the first inserted component.
+	 * @throws ArrayIndexOutOfBoundsException  If the index is invalid.
+	 */
+	public default void
+	insertAll(Collection<? extends C> c, int index) {
+		if(index < 0 || index > size()) throw new ArrayIndexOutOfBoundsException(index);
+		
+		beginBatch();
+		try { for(C comp : c) insert(comp, index++); }
+		finally { endBatch(); }
+	}
+	
 	/**
 	 * Removes the specified component.
 	 * @param c The component to be removed.
@@ -63,23 +92,71 @@ public interface ComponentListModel<C extends Component> extends ListModel {
 	public C remove(int index);
 	
 	/**
-	 * Determines whether there are known upcoming changes to the 
-	 * component list, which should be considered as part of a single action.
+	 * Removes the components in the specified range (inclusive).
+	 * The change is reported with a single event.
+	 * @param fromIndex The index of the first component to be removed.
+	 * @param toIndex The index of the last component to be removed.
+	 * @throws ArrayIndexOutOfBoundsException If an index is out of range.
+	 * @throws IllegalArgumentException If <code>fromIndex</code>
+	 * is greater than <code>toIndex</code>.
 	 */
-	public boolean getComponentListIsAdjusting();
+	public default void
+	removeRange(int fromIndex, int toIndex) {
+		if(fromIndex > toIndex) {
+			throw new IllegalArgumentException("fromIndex must be less or equal to toIndex");
+		}
+		
+		if(fromIndex < 0) throw new ArrayIndexOutOfBoundsException(fromIndex);
+		if(toIndex >= size()) throw new ArrayIndexOutOfBoundsException(toIndex);
+		
+		beginBatch();
+		try { for(int i = toIndex; i >= fromIndex; i--) remove(i); }
+		finally { endBatch(); }
+	}
 	
 	/**
-	 * Sets whether there are upcoming changes to the 
-	 * component list which should be considered part of a single action.
+	 * Replaces the content of the list with the specified components.
+	 * The default implementation removes all components and
+	 * adds the new components in a single batch.
+	 * @param c The new content of the list.
 	 */
-	public void setComponentListIsAdjusting(boolean b);
+	public default void
+	replaceAll(Collection<? extends C> c) {
+		beginBatch();
+		
+		try {
+			if(size() > 0) removeRange(0, size() - 1);
+			addAll(c);
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Replaces the content of the list with the specified components, keeping the
+	 * components which are present in both the list and the new content. Unlike
+	 * {@link #replaceAll}, only the components which are actually added or removed
+	 * are reported as such, with an event per contiguous run of components,
+	 * so that the selection of the kept components is preserved.
+	 * @param c The new content of the list.
+	 */
+	public default void
+	replaceContents(Collection<? extends C> c) { replaceContents(c, null); }
 	
 	/**
-	 * Gets the component at the specified index.
-	 * @param index The requested index.
-	 * @return The component at the specified index.
+	 * Replaces the content of the list with the specified components, keeping the
+	 * components whose keys are present in both the list and the new content.
+	 * A kept component is replaced with the new component with the same key,
+	 * if they are not the same component.
+	 * @param c The new content of the list.
+	 * @param key Extracts the key of a component or <code>null</code>
+	 * if the components should be matched by identity.
+	 * @see #replaceContents(Collection)
 	 */
-	public C get(int index);
+	public default void
+	replaceContents(Collection<? extends C> c, Function<? super C, ?> key) {
+		ComponentListDiff.replaceContents(this, new ArrayList<C>(c), key);
+	}
 	
 	/**
 	 * Replaces the component at the specified position with the specified component.
@@ -89,6 +166,15 @@ public interface ComponentListModel<C extends Component> extends ListModel {
 	 */
 	public C set(int index, C c);
 	
+	/**
+	 * Determines whether the components can be moved through this model.
+	 * The default implementation returns <code>true</code>.
+	 * @return <code>true</code> if the components can be moved,
+	 * <code>false</code> if the move methods throw <code>UnsupportedOperationException</code>.
+	 */
+	public default boolean
+	isMoveSupported() { return true; }
+	
 	/**
 	 * Moves the specified component one position up in the list.
 	 * @param c The component to be moved up.
@@ -102,8 +188,111 @@ public interface ComponentListModel<C extends Component> extends ListModel {
 	public void moveDown(C c);
 	
 	/**
-	 * Gets the length of the list.
-	 * @return The length of the list.
+	 * Moves the component at the specified position to a new position.
+	 * The change is reported with a single event. The default implementation
+	 * removes the component and inserts it at the new position in a single batch.
+	 * @param from The current position of the component.
+	 * @param to The new position of the component.
+	 * @throws ArrayIndexOutOfBoundsException If an index is out of range.
 	 */
-	public int size();
+	public default void
+	move(int from, int to) {
+		if(from < 0 || from >= size()) throw new ArrayIndexOutOfBoundsException(from);
+		if(to < 0 || to >= size()) throw new ArrayIndexOutOfBoundsException(to);
+		if(from == to) return;
+		
+		beginBatch();
+		try { insert(remove(from), to); }
+		finally { endBatch(); }
+	}
+	
+	/**
+	 * Moves the specified number of consecutive components to a new position,
+	 * keeping their order. The change is reported with a single event.
+	 * @param from The current position of the first component to move.
+	 * @param to The position of the first moved component after the move.
+	 * @param count The number of components to move.
+	 * @throws ArrayIndexOutOfBoundsException If an index is out of range.
+	 */
+	public default void
+	move(int from, int to, int count) {
+		if(count < 0) throw new IllegalArgumentException("Negative count: " + count);
+		if(from < 0 || from + count > size()) throw new ArrayIndexOutOfBoundsException(from);
+		if(to < 0 || to + count > size()) throw new ArrayIndexOutOfBoundsException(to);
+		if(count == 0 || from == to) return;
+		
+		beginBatch();
+		try {
+			if(from < to) for(int i = 0; i < count; i++) move(from, to + count - 1);
+			else for(int i = 0; i < count; i++) move(from + i, to + i);
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Sets whether there are upcoming changes to the 
+	 * component list which should be considered part of a single action.
+	 * @see #beginBatch
+	 */
+	public void setComponentListIsAdjusting(boolean b);
+	
+	/**
+	 * Begins a batch of changes. Batches can be nested and the events
+	 * describing the changes are delivered when the outermost batch ends,
+	 * so that the list is updated only once per batch.
+	 * Each invocation of this method must be followed by
+	 * an invocation of {@link #endBatch}. The default implementation does
+	 * nothing, so the events are delivered as the changes are made.
+	 * @see #batch
+	 */
+	public default void
+	beginBatch() { }
+	
+	/**
+	 * Ends a batch of changes. If this is the outermost batch, a minimal
+	 * set of events describing all changes made during the batch is fired.
+	 * The default implementation does nothing. The implementations
+	 * which support batches throw <code>IllegalStateException</code>
+	 * if there is no batch in progress.
+	 */
+	public default void
+	endBatch() { }
+	
+	/**
+	 * Begins a batch of changes, which ends when the returned
+	 * <code>Batch</code> is closed. This method is intended to
+	 * be used in a <code>try</code>-with-resources statement:
+	 * <pre>
+	 * try(ComponentListModel.Batch b = model.batch()) {
+	 *     model.add(c1);
+	 *     model.remove(c2);
+	 * }
+	 * </pre>
+	 * @return The <code>Batch</code> to be closed when the batch is complete.
+	 * @see #beginBatch
+	 */
+	public default Batch
+	batch() {
+		beginBatch();
+		
+		return new Batch() {
+			private boolean closed = false;
+			
+			@Override
+			public void
+			close() {
+				if(closed) return;
+				closed = true;
+				endBatch();
+			}
+		};
+	}
+	
+	/** A batch of changes to a component list model. */
+	public interface Batch extends AutoCloseable {
+		/** Ends the batch of changes. */
+		@Override
+		public void close();
+	}
 }
@@ -0,0 +1,61 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+
+/**
+ * Creates and binds the row components of a <code>DataComponentList</code>.
+ * Like the renderers and the editors of <code>JList</code> and <code>JTable</code>,
+ * a row component is reused to display different values, so the number of
+ * components scales with the number of displayed rows, not with the size of the data.
+ * @see DataComponentListModel
+ * @author Grigor Iliev
+ */
+public interface ComponentListRowFactory<T, C extends Component> {
+	/**
+	 * Creates a new row component. The returned component
+	 * is bound to a value before it is displayed.
+	 * @return A new row component.
+	 */
+	public C createRow();
+	
+	/**
+	 * Configures the specified row component to display the specified value.
+	 * The component may be previously bound to another value.
+	 * @param row The row component.
+	 * @param value The value to be displayed.
+	 */
+	public void bindRow(C row, T value);
+	
+	/**
+	 * Invoked when the specified row component is no longer displayed and
+	 * is returned to the pool of reusable components. Implementations can use
+	 * this method to release the references to the bound value.
+	 * The default implementation does nothing.
+	 * @param row The released row component.
+	 */
+	public default void
+	releaseRow(C row) { }
+}
\ No newline at end of file
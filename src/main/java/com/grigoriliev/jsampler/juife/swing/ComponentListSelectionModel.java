@@ -0,0 +1,677 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import javax.swing.ListSelectionModel;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+
+
+/**
+ * A <code>ListSelectionModel</code> which stores the selection state in an array of
+ * <code>long</code> words. The range operations and the iteration over the selected
+ * indices process 64 indices at a time, which makes this model suitable for very large
+ * lists. This model has the same semantics as <code>DefaultListSelectionModel</code>
+ * and is the default selection model of <code>ComponentList</code>.
+ * @author Grigor Iliev
+ */
+public class ComponentListSelectionModel implements ListSelectionModel {
+	private final EventListenerList listenerList = new EventListenerList();
+	
+	private long[] words = new long[4];
+	private int selectedCount = 0;
+	
+	/** The first and the last selected index, valid only if <code>boundsValid</code> is set. */
+	private int minIndex = Integer.MAX_VALUE;
+	private int maxIndex = -1;
+	private boolean boundsValid = true;
+	
+	private int selectionMode = MULTIPLE_INTERVAL_SELECTION;
+	private int anchorIndex = -1;
+	private int leadIndex = -1;
+	private boolean isAdjusting = false;
+	private boolean leadAnchorNotificationEnabled = true;
+	
+	/** The range of the indices changed since the last event. */
+	private int firstAdjustedIndex = Integer.MAX_VALUE;
+	private int lastAdjustedIndex = -1;
+	
+	/** The range of the indices changed since <code>isAdjusting</code> was set. */
+	private int firstChangedIndex = Integer.MAX_VALUE;
+	private int lastChangedIndex = -1;
+	
+	
+	/** Creates a new instance of <code>ComponentListSelectionModel</code>. */
+	public
+	ComponentListSelectionModel() { }
+	
+	@Override
+	public void
+	addListSelectionListener(ListSelectionListener l) {
+		listenerList.add(ListSelectionListener.class, l);
+	}
+	
+	@Override
+	public void
+	removeListSelectionListener(ListSelectionListener l) {
+		listenerList.remove(ListSelectionListener.class, l);
+	}
+	
+	/**
+	 * Gets all <code>ListSelectionListener</code>s registered with this model.
+	 * @return An array of all registered <code>ListSelectionListener</code>s.
+	 */
+	public ListSelectionListener[]
+	getListSelectionListeners() { return listenerList.getListeners(ListSelectionListener.class); }
+	
+	@Override
+	public int
+	getSelectionMode() { return selectionMode; }
+	
+	@Override
+	public void
+	setSelectionMode(int selectionMode) {
+		switch(selectionMode) {
+		case SINGLE_SELECTION:
+		case SINGLE_INTERVAL_SELECTION:
+		case MULTIPLE_INTERVAL_SELECTION:
+			this.selectionMode = selectionMode;
+			break;
+		default:
+			throw new IllegalArgumentException("invalid selectionMode");
+		}
+	}
+	
+	@Override
+	public boolean
+	getValueIsAdjusting() { return isAdjusting; }
+	
+	@Override
+	public void
+	setValueIsAdjusting(boolean b) {
+		if(b == isAdjusting) return;
+		isAdjusting = b;
+		fireValueChanged(b);
+	}
+	
+	/**
+	 * Determines whether the changes of the anchor and the lead
+	 * indices are reported to the <code>ListSelectionListener</code>s.
+	 */
+	public boolean
+	isLeadAnchorNotificationEnabled() { return leadAnchorNotificationEnabled; }
+	
+	/**
+	 * Sets whether the changes of the anchor and the lead indices
+	 * should be reported to the <code>ListSelectionListener</code>s.
+	 * The default value is <code>true</code>.
+	 */
+	public void
+	setLeadAnchorNotificationEnabled(boolean b) { leadAnchorNotificationEnabled = b; }
+	
+	@Override
+	public int
+	getAnchorSelectionIndex() { return anchorIndex; }
+	
+	@Override
+	public int
+	getLeadSelectionIndex() { return leadIndex; }
+	
+	@Override
+	public int
+	getMinSelectionIndex() {
+		updateBounds();
+		return isSelectionEmpty() ? -1 : minIndex;
+	}
+	
+	@Override
+	public int
+	getMaxSelectionIndex() {
+		updateBounds();
+		return isSelectionEmpty() ? -1 : maxIndex;
+	}
+	
+	@Override
+	public boolean
+	isSelectionEmpty() { return selectedCount == 0; }
+	
+	@Override
+	public boolean
+	isSelectedIndex(int index) {
+		if(index < 0 || (index >>> 6) >= words.length) return false;
+		return (words[index >>> 6] & (1L << index)) != 0;
+	}
+	
+	/**
+	 * Gets the number of selected indices.
+	 * @return The number of selected indices.
+	 */
+	@Override
+	public int
+	getSelectedItemsCount() { return selectedCount; }
+	
+	/**
+	 * Gets all selected indices in increasing order.
+	 * @return An array of all selected indices in increasing order.
+	 */
+	@Override
+	public int[]
+	getSelectedIndices() {
+		int[] indices = new int[selectedCount];
+		
+		int n = 0;
+		for(int k = 0; n < indices.length; k++) {
+			for(long w = words[k]; w != 0; w &= w - 1) {
+				indices[n++] = (k << 6) + Long.numberOfTrailingZeros(w);
+			}
+		}
+		
+		return indices;
+	}
+	
+	/**
+	 * Gets the first selected index which is greater than or equal to the specified index.
+	 * @param fromIndex The index to start the search from.
+	 * @return The first selected index which is greater than or equal
+	 * to <code>fromIndex</code> or -1 if there is no such index.
+	 */
+	public int
+	nextSelectedIndex(int fromIndex) {
+		if(fromIndex < 0) fromIndex = 0;
+		
+		int k = fromIndex >>> 6;
+		if(k >= words.length) return -1;
+		
+		long w = words[k] & (-1L << fromIndex);
+		
+		while(w == 0) {
+			if(++k == words.length) return -1;
+			w = words[k];
+		}
+		
+		return (k << 6) + Long.numberOfTrailingZeros(w);
+	}
+	
+	/**
+	 * Gets the last selected index which is less than or equal to the specified index.
+	 * @param fromIndex The index to start the backward search from.
+	 * @return The last selected index which is less than or equal
+	 * to <code>fromIndex</code> or -1 if there is no such index.
+	 */
+	public int
+	previousSelectedIndex(int fromIndex) {
+		if(fromIndex < 0) return -1;
+		
+		int k = fromIndex >>> 6;
+		long w;
+		
+		if(k >= words.length) {
+			k = words.length - 1;
+			w = words[k];
+		} else {
+			w = words[k] & (-1L >>> (63 - (fromIndex & 63)));
+		}
+		
+		while(w == 0) {
+			if(--k < 0) return -1;
+			w = words[k];
+		}
+		
+		return (k << 6) + 63 - Long.numberOfLeadingZeros(w);
+	}
+	
+	@Override
+	public void
+	setSelectionInterval(int index0, int index1) {
+		if(index0 == -1 || index1 == -1) return;
+		checkIndices(index0, index1);
+		
+		if(getSelectionMode() == SINGLE_SELECTION) index0 = index1;
+		
+		updateLeadAnchorIndices(index0, index1);
+		
+		changeSelection (
+			getMinSelectionIndex(), getMaxSelectionIndex(),
+			Math.min(index0, index1), Math.max(index0, index1), true
+		);
+	}
+	
+	@Override
+	public void
+	addSelectionInterval(int index0, int index1) {
+		if(index0 == -1 || index1 == -1) return;
+		checkIndices(index0, index1);
+		
+		if(getSelectionMode() == SINGLE_SELECTION) {
+			setSelectionInterval(index0, index1);
+			return;
+		}
+		
+		updateLeadAnchorIndices(index0, index1);
+		
+		int setMin = Math.min(index0, index1);
+		int setMax = Math.max(index0, index1);
+		
+		// adding a disjoint interval in single interval mode replaces the selection
+		if(getSelectionMode() == SINGLE_INTERVAL_SELECTION && !isSelectionEmpty()) {
+			if(setMax < getMinSelectionIndex() - 1 || setMin > getMaxSelectionIndex() + 1) {
+				setSelectionInterval(index0, index1);
+				return;
+			}
+		}
+		
+		changeSelection(-1, -1, setMin, setMax, true);
+	}
+	
+	@Override
+	public void
+	removeSelectionInterval(int index0, int index1) {
+		removeSelectionInterval(index0, index1, true);
+	}
+	
+	private void
+	removeSelectionInterval(int index0, int index1, boolean changeLeadAnchor) {
+		if(index0 == -1 || index1 == -1) return;
+		checkIndices(index0, index1);
+		
+		if(changeLeadAnchor) updateLeadAnchorIndices(index0, index1);
+		
+		int clearMin = Math.min(index0, index1);
+		int clearMax = Math.max(index0, index1);
+		
+		// removing from the middle in a single interval mode clears the rest of the interval
+		if(getSelectionMode() != MULTIPLE_INTERVAL_SELECTION && !isSelectionEmpty()) {
+			if(clearMin > getMinSelectionIndex() && clearMax < getMaxSelectionIndex()) {
+				clearMax = getMaxSelectionIndex();
+			}
+		}
+		
+		changeSelection(clearMin, clearMax, -1, -1, true);
+	}
+	
+	@Override
+	public void
+	clearSelection() {
+		if(isSelectionEmpty()) return;
+		removeSelectionInterval(getMinSelectionIndex(), getMaxSelectionIndex(), false);
+	}
+	
+	/**
+	 * Replaces the selection state of the indices in the specified interval (inclusive)
+	 * with the state of the corresponding bits of the specified set and sets the anchor and
+	 * the lead selection indices. The listeners are notified with a single event. Note that
+	 * the selection mode is not taken into account.
+	 * @param selection The new selection state of the indices in the interval.
+	 * @param fromIndex The first index of the interval.
+	 * @param toIndex The last index of the interval.
+	 * @param anchorIndex The new anchor selection index.
+	 * @param leadIndex The new lead selection index.
+	 */
+	public void
+	setSelection(BitSet selection, int fromIndex, int toIndex, int anchorIndex, int leadIndex) {
+		checkIndices(fromIndex, toIndex);
+		updateLeadAnchorIndices(anchorIndex, leadIndex);
+		
+		if(fromIndex != -1 && fromIndex <= toIndex) {
+			long[] bits = selection.toLongArray();
+			
+			for(int k = fromIndex >>> 6; k <= toIndex >>> 6; k++) {
+				long m = rangeMask(fromIndex, toIndex, k);
+				long b = k < bits.length ? bits[k] : 0;
+				setWord(k, (word(k) & ~m) | (b & m));
+			}
+		}
+		
+		fireValueChanged();
+	}
+	
+	@Override
+	public void
+	setAnchorSelectionIndex(int anchorIndex) {
+		updateLeadAnchorIndices(anchorIndex, leadIndex);
+		fireValueChanged();
+	}
+	
+	/**
+	 * Sets the lead selection index without changing the selection.
+	 * @param leadIndex The new lead selection index.
+	 */
+	public void
+	moveLeadSelectionIndex(int leadIndex) {
+		if(leadIndex == -1 && anchorIndex != -1) return;
+		
+		updateLeadAnchorIndices(anchorIndex, leadIndex);
+		fireValueChanged();
+	}
+	
+	@Override
+	public void
+	setLeadSelectionIndex(int leadIndex) {
+		int anchorIndex = this.anchorIndex;
+		
+		if(leadIndex == -1) {
+			if(anchorIndex == -1) {
+				updateLeadAnchorIndices(anchorIndex, leadIndex);
+				fireValueChanged();
+			}
+			
+			return;
+		}
+		
+		if(anchorIndex == -1) return;
+		
+		if(this.leadIndex == -1) this.leadIndex = leadIndex;
+		
+		boolean shouldSelect = isSelectedIndex(anchorIndex);
+		
+		if(getSelectionMode() == SINGLE_SELECTION) {
+			anchorIndex = leadIndex;
+			shouldSelect = true;
+		}
+		
+		int oldMin = Math.min(this.anchorIndex, this.leadIndex);
+		int oldMax = Math.max(this.anchorIndex, this.leadIndex);
+		int newMin = Math.min(anchorIndex, leadIndex);
+		int newMax = Math.max(anchorIndex, leadIndex);
+		
+		updateLeadAnchorIndices(anchorIndex, leadIndex);
+		
+		if(shouldSelect) changeSelection(oldMin, oldMax, newMin, newMax, true);
+		else changeSelection(newMin, newMax, oldMin, oldMax, false);
+	}
+	
+	@Override
+	public void
+	insertIndexInterval(int index, int length, boolean before) {
+		if(length < 0 || index < 0) {
+			throw new IndexOutOfBoundsException("index or length is negative");
+		}
+		
+		if(index == Integer.MAX_VALUE || length == 0) return;
+		
+		int insMin = before ? index : index + 1;
+		int insMax = insMin + length - 1;
+		
+		boolean setInserted = getSelectionMode() != SINGLE_SELECTION && isSelectedIndex(index);
+		
+		int last = Math.max(insMax, getMaxSelectionIndex() + length);
+		
+		// shift the indices starting at insMin, processing the words from the last one
+		for(int k = last >>> 6; k >= insMin >>> 6; k--) {
+			long kept = word(k) & lowMask(insMin, k);
+			long moved = extract(((long)k << 6) - length) & ~lowMask((long)insMin + length, k);
+			long inserted = setInserted ? rangeMask(insMin, insMax, k) : 0;
+			setWord(k, kept | moved | inserted);
+		}
+		
+		int leadIndex = this.leadIndex;
+		if(leadIndex > index || (before && leadIndex == index)) leadIndex += length;
+		
+		int anchorIndex = this.anchorIndex;
+		if(anchorIndex > index || (before && anchorIndex == index)) anchorIndex += length;
+		
+		if(leadIndex != this.leadIndex || anchorIndex != this.anchorIndex) {
+			updateLeadAnchorIndices(anchorIndex, leadIndex);
+		}
+		
+		fireValueChanged();
+	}
+	
+	@Override
+	public void
+	removeIndexInterval(int index0, int index1) {
+		if(index0 < -1 || index1 < -1) {
+			throw new IndexOutOfBoundsException("index0 or index1 is less than -1");
+		}
+		
+		int rmMin = Math.min(index0, index1);
+		int rmMax = Math.max(index0, index1);
+		if(rmMin < 0) return;
+		
+		int gap = rmMax - rmMin + 1;
+		int max = getMaxSelectionIndex();
+		
+		if(max >= rmMin) {
+			// shift the indices after rmMax, processing the words from the first one
+			for(int k = rmMin >>> 6; k <= max >>> 6; k++) {
+				long kept = word(k) & lowMask(rmMin, k);
+				long moved = extract(((long)k << 6) + gap) & ~lowMask(rmMin, k);
+				setWord(k, kept | moved);
+			}
+		}
+		
+		int leadIndex = this.leadIndex;
+		if(leadIndex == 0 && rmMin == 0) {
+			// keep the lead at 0
+		} else if(leadIndex > rmMax) {
+			leadIndex -= gap;
+		} else if(leadIndex >= rmMin) {
+			leadIndex = rmMin - 1;
+		}
+		
+		int anchorIndex = this.anchorIndex;
+		if(anchorIndex == 0 && rmMin == 0) {
+			// keep the anchor at 0
+		} else if(anchorIndex > rmMax) {
+			anchorIndex -= gap;
+		} else if(anchorIndex >= rmMin) {
+			anchorIndex = rmMin - 1;
+		}
+		
+		if(leadIndex != this.leadIndex || anchorIndex != this.anchorIndex) {
+			updateLeadAnchorIndices(anchorIndex, leadIndex);
+		}
+		
+		fireValueChanged();
+	}
+	
+	/**
+	 * Clears the indices in the clear interval and selects the indices in the set
+	 * interval, processing a word at a time. An interval with negative bounds is empty.
+	 * @param clearFirst Specifies which operation wins for the indices in both intervals;
+	 * if <code>true</code> the indices are selected, otherwise they are cleared.
+	 */
+	private void
+	changeSelection(int clearMin, int clearMax, int setMin, int setMax, boolean clearFirst) {
+		boolean clear = clearMin >= 0 && clearMin <= clearMax;
+		boolean set = setMin >= 0 && setMin <= setMax;
+		
+		if(clear || set) {
+			int lo = Math.min(clear ? clearMin : Integer.MAX_VALUE, set ? setMin : Integer.MAX_VALUE);
+			int hi = Math.max(clear ? clearMax : -1, set ? setMax : -1);
+			
+			for(int k = lo >>> 6; k <= hi >>> 6; k++) {
+				long c = clear ? rangeMask(clearMin, clearMax, k) : 0;
+				long s = set ? rangeMask(setMin, setMax, k) : 0;
+				long w = word(k);
+				setWord(k, clearFirst ? (w & ~c) | s : (w | s) & ~c);
+			}
+		}
+		
+		fireValueChanged();
+	}
+	
+	private long
+	word(int k) { return k < words.length ? words[k] : 0; }
+	
+	private void
+	setWord(int k, long w) {
+		long old = word(k);
+		if(old == w) return;
+		
+		if(k >= words.length) words = Arrays.copyOf(words, Math.max(k + 1, words.length * 2));
+		words[k] = w;
+		selectedCount += Long.bitCount(w) - Long.bitCount(old);
+		
+		long diff = old ^ w;
+		markAsDirty((k << 6) + Long.numberOfTrailingZeros(diff));
+		markAsDirty((k << 6) + 63 - Long.numberOfLeadingZeros(diff));
+		
+		if((diff & old) != 0) {
+			boundsValid = false; // some indices are cleared
+		} else if(boundsValid) {
+			minIndex = Math.min(minIndex, (k << 6) + Long.numberOfTrailingZeros(diff));
+			maxIndex = Math.max(maxIndex, (k << 6) + 63 - Long.numberOfLeadingZeros(diff));
+		}
+	}
+	
+	/** Gets the 64 selection bits starting at the specified index. */
+	private long
+	extract(long index) {
+		if(index <= -64 || index >= (long)words.length << 6) return 0;
+		
+		int k = (int)Math.floorDiv(index, 64);
+		int s = Math.floorMod(index, 64);
+		
+		long lo = k < 0 ? 0 : words[k];
+		if(s == 0) return lo;
+		
+		long hi = k + 1 < words.length ? words[k + 1] : 0;
+		return (lo >>> s) | (hi << (64 - s));
+	}
+	
+	/** Gets the mask of the bits of word <code>k</code> whose indices are less than <code>index</code>. */
+	private static long
+	lowMask(long index, int k) {
+		long first = (long)k << 6;
+		if(index <= first) return 0;
+		if(index >= first + 64) return -1L;
+		return (1L << (index - first)) - 1;
+	}
+	
+	/** Gets the mask of the bits of word <code>k</code> in the specified interval. */
+	private static long
+	rangeMask(int from, int to, int k) {
+		return ~lowMask(from, k) & lowMask((long)to + 1, k);
+	}
+	
+	private void
+	updateBounds() {
+		if(boundsValid) return;
+		
+		boundsValid = true;
+		minIndex = nextSelectedIndex(0);
+		maxIndex = previousSelectedIndex(Integer.MAX_VALUE);
+		
+		if(minIndex == -1) minIndex = Integer.MAX_VALUE;
+	}
+	
+	private void
+	checkIndices(int index0, int index1) {
+		if(index0 < -1 || index1 < -1) {
+			throw new IndexOutOfBoundsException("index0 or index1 is less than -1");
+		}
+	}
+	
+	private void
+	updateLeadAnchorIndices(int anchorIndex, int leadIndex) {
+		if(leadAnchorNotificationEnabled) {
+			if(this.anchorIndex != anchorIndex) {
+				markAsDirty(this.anchorIndex);
+				markAsDirty(anchorIndex);
+			}
+			
+			if(this.leadIndex != leadIndex) {
+				markAsDirty(this.leadIndex);
+				markAsDirty(leadIndex);
+			}
+		}
+		
+		this.anchorIndex = anchorIndex;
+		this.leadIndex = leadIndex;
+	}
+	
+	private void
+	markAsDirty(int index) {
+		if(index < 0) return;
+		
+		firstAdjustedIndex = Math.min(firstAdjustedIndex, index);
+		lastAdjustedIndex = Math.max(lastAdjustedIndex, index);
+	}
+	
+	/**
+	 * Notifies the listeners about the changes made since <code>isAdjusting</code>
+	 * was set, when <code>isAdjusting</code> is changed.
+	 */
+	private void
+	fireValueChanged(boolean isAdjusting) {
+		if(lastChangedIndex == -1) return;
+		
+		int first = firstChangedIndex;
+		int last = lastChangedIndex;
+		firstChangedIndex = Integer.MAX_VALUE;
+		lastChangedIndex = -1;
+		
+		fireValueChanged(first, last, isAdjusting);
+	}
+	
+	/** Notifies the listeners about the changes made since the last event. */
+	private void
+	fireValueChanged() {
+		if(lastAdjustedIndex == -1) return;
+		
+		// remember the changes, so that they can be reported again when the adjusting ends
+		if(getValueIsAdjusting()) {
+			firstChangedIndex = Math.min(firstChangedIndex, firstAdjustedIndex);
+			lastChangedIndex = Math.max(lastChangedIndex, lastAdjustedIndex);
+		}
+		
+		int first = firstAdjustedIndex;
+		int last = lastAdjustedIndex;
+		firstAdjustedIndex = Integer.MAX_VALUE;
+		lastAdjustedIndex = -1;
+		
+		fireValueChanged(first, last, getValueIsAdjusting());
+	}
+	
+	/**
+	 * Notifies all registered <code>ListSelectionListener</code>s
+	 * that the selection in the specified interval may have changed.
+	 */
+	protected void
+	fireValueChanged(int firstIndex, int lastIndex, boolean isAdjusting) {
+		Object[] listeners = listenerList.getListenerList();
+		ListSelectionEvent e = null;
+		
+		for(int i = listeners.length - 2; i >= 0; i -= 2) {
+			if(listeners[i] == ListSelectionListener.class) {
+				if(e == null) {
+					e = new ListSelectionEvent(this, firstIndex, lastIndex, isAdjusting);
+				}
+				
+				((ListSelectionListener)listeners[i + 1]).valueChanged(e);
+			}
+		}
+	}
+	
+	@Override
+	public String
+	toString() {
+		return getClass().getName() + " " + Integer.toString(hashCode()) + " " +
+			Arrays.toString(getSelectedIndices());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.util.EventObject;
+
+
+/**
+ * An event notifying that the selection state of one or more components of
+ * a <code>ComponentList</code> has changed. Unlike <code>ListSelectionEvent</code>,
+ * which specifies the range of indices whose selection may have changed,
+ * this event contains only the indices whose selection state has actually flipped.
+ * @author Grigor Iliev
+ */
+public class ComponentSelectionEvent extends EventObject {
+	private final int[] indices;
+	private final boolean isAdjusting;
+	
+	/**
+	 * Creates a new instance of <code>ComponentSelectionEvent</code>.
+	 * @param source The <code>ComponentList</code> that originated the event.
+	 * @param indices The indices whose selection state has changed, in increasing order.
+	 * @param isAdjusting Specifies whether this is one in a series of multiple events.
+	 */
+	public
+	ComponentSelectionEvent(ComponentList source, int[] indices, boolean isAdjusting) {
+		super(source);
+		this.indices = indices;
+		this.isAdjusting = isAdjusting;
+	}
+	
+	/**
+	 * Gets the <code>ComponentList</code> that originated the event.
+	 * @return The <code>ComponentList</code> that originated the event.
+	 */
+	public ComponentList
+	getComponentList() { return (ComponentList)getSource(); }
+	
+	/**
+	 * Gets the indices of the components whose selection state has changed.
+	 * @return The indices whose selection state has changed, in increasing order.
+	 */
+	public int[]
+	getChangedIndices() { return indices.clone(); }
+	
+	/**
+	 * Gets the number of components whose selection state has changed.
+	 * @return The number of components whose selection state has changed.
+	 */
+	public int
+	getChangedCount() { return indices.length; }
+	
+	/**
+	 * Gets the index of the <code>i</code>-th component whose selection state has changed.
+	 * @param i A number between 0 and <code>getChangedCount() - 1</code>.
+	 */
+	public int
+	getChangedIndex(int i) { return indices[i]; }
+	
+	/**
+	 * Determines whether the specified component is selected after the change.
+	 * @param index The index of the component.
+	 */
+	public boolean
+	isSelected(int index) { return getComponentList().isSelectedIndex(index); }
+	
+	/**
+	 * Determines whether this is one in a series of multiple events,
+	 * where the changes are still in progress.
+	 */
+	public boolean
+	getValueIsAdjusting() { return isAdjusting; }
+}
\ No newline at end of file
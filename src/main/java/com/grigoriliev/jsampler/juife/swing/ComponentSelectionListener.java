@@ -0,0 +1,39 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.util.EventListener;
+
+
+/**
+ * The listener interface for receiving notifications about the
+ * components of a <code>ComponentList</code> whose selection state has changed.
+ * @author Grigor Iliev
+ */
+public interface ComponentSelectionListener extends EventListener {
+	/**
+	 * Invoked when the selection state of one or more components has changed.
+	 * @param e A <code>ComponentSelectionEvent</code> describing the change.
+	 */
+	public void componentSelectionChanged(ComponentSelectionEvent e);
+}
\ No newline at end of file
@@ -0,0 +1,305 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+
+/**
+ * A <code>ComponentListModel</code> which can be modified from any thread.
+ * The changes made from threads other than the event dispatching thread are
+ * queued in a lock-free queue and applied on the event dispatching thread
+ * in a single batch, at most once per flush period (one frame by default).
+ * The changes made on the event dispatching thread are applied immediately,
+ * after the queued changes.
+ * <p>Only the mutators can be invoked from any thread. The state of the model
+ * (<code>get</code>, <code>size</code>, <code>indexOf</code> and so on) should be
+ * queried only from the event dispatching thread - the model is confined to it, so
+ * with assertions enabled these methods fail when invoked from other threads.
+ * The batches (<code>beginBatch</code>, <code>endBatch</code> and <code>batch</code>)
+ * can be used only on the event dispatching thread, because the changes made from
+ * other threads are already applied in batches. The changes to the adjusting
+ * state made from other threads are queued like the other changes.
+ * Because the queued changes are applied later, the mutators invoked from other
+ * threads cannot report their results - <code>remove(int)</code> and <code>set</code>
+ * return <code>null</code> and <code>remove(C)</code> returns <code>false</code>.
+ * The index based changes are resolved against the state of the model at the
+ * time they are applied.</p>
+ * @author Grigor Iliev
+ */
+public class ConcurrentComponentListModel<C extends Component> extends DefaultComponentListModel<C> {
+	/** The default flush period in milliseconds. */
+	public final static int DEFAULT_FLUSH_DELAY = 16;
+	
+	private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+	private final Timer flushTimer;
+	private boolean flushing = false;
+	
+	/**
+	 * Creates a new instance of <code>ConcurrentComponentListModel</code>.
+	 * The identity index of the model is enabled by default.
+	 */
+	public
+	ConcurrentComponentListModel() {
+		super(true);
+		setIdentityIndexEnabled(true);
+		
+		flushTimer = new Timer(DEFAULT_FLUSH_DELAY, e -> flush());
+		flushTimer.setRepeats(false);
+	}
+	
+	/**
+	 * Gets the maximum time in milliseconds the changes made from
+	 * other threads are kept in the queue before they are applied.
+	 */
+	public int
+	getFlushDelay() { return flushTimer.getInitialDelay(); }
+	
+	/**
+	 * Sets the maximum time in milliseconds the changes made from
+	 * other threads are kept in the queue before they are applied.
+	 * @param delay The flush delay. If <code>0</code>, the queued changes
+	 * are applied as soon as the event dispatching thread processes the
+	 * events posted before the first queued change.
+	 */
+	public void
+	setFlushDelay(int delay) {
+		if(delay < 0) throw new IllegalArgumentException("Negative delay: " + delay);
+		flushTimer.setInitialDelay(delay);
+	}
+	
+	/**
+	 * Determines whether there are queued changes which are not applied yet.
+	 */
+	public boolean
+	hasPendingChanges() { return !queue.isEmpty(); }
+	
+	/**
+	 * Applies all queued changes in a single batch.
+	 * This method should be invoked on the event dispatching thread.
+	 */
+	public void
+	flush() {
+		checkEventDispatchThread("flush()");
+		
+		flushScheduled.set(false);
+		if(flushing || queue.isEmpty()) return;
+		
+		flushing = true;
+		beginBatch();
+		
+		try {
+			for(Runnable r = queue.poll(); r != null; r = queue.poll()) r.run();
+		} finally {
+			endBatch();
+			flushing = false;
+			
+			// in case a queued change has failed
+			if(!queue.isEmpty()) scheduleFlush();
+		}
+	}
+	
+	/**
+	 * If invoked from a thread other than the event dispatching thread, queues the
+	 * specified change and schedules a flush. Otherwise, applies the queued changes.
+	 * @return <code>true</code> if the change is queued,
+	 * <code>false</code> if it should be applied by the caller.
+	 */
+	private boolean
+	enqueue(Runnable r) {
+		if(SwingUtilities.isEventDispatchThread()) {
+			if(!flushing) flush();
+			return false;
+		}
+		
+		queue.add(r);
+		scheduleFlush();
+		return true;
+	}
+	
+	private static void
+	checkEventDispatchThread(String method) {
+		if(!SwingUtilities.isEventDispatchThread()) {
+			throw new IllegalStateException(method + " should be invoked on the event dispatching thread");
+		}
+	}
+	
+	private void
+	scheduleFlush() {
+		if(!flushScheduled.compareAndSet(false, true)) return;
+		
+		if(getFlushDelay() == 0) SwingUtilities.invokeLater(this::flush);
+		else flushTimer.restart();
+	}
+	
+	/**
+	 * Begins a batch of changes.
+	 * @throws IllegalStateException If not invoked on the event dispatching thread.
+	 */
+	@Override
+	public void
+	beginBatch() {
+		checkEventDispatchThread("beginBatch()");
+		super.beginBatch();
+	}
+	
+	/**
+	 * Ends a batch of changes.
+	 * @throws IllegalStateException If not invoked on the event dispatching thread
+	 * or if there is no matching invocation of <code>beginBatch</code>.
+	 */
+	@Override
+	public void
+	endBatch() {
+		checkEventDispatchThread("endBatch()");
+		super.endBatch();
+	}
+	
+	@Override
+	public void
+	setComponentListIsAdjusting(boolean b) {
+		if(enqueue(() -> super.setComponentListIsAdjusting(b))) return;
+		super.setComponentListIsAdjusting(b);
+	}
+	
+	@Override
+	public void
+	add(C c) {
+		if(enqueue(() -> super.add(c))) return;
+		super.add(c);
+	}
+	
+	@Override
+	public void
+	insert(C c, int index) {
+		if(enqueue(() -> super.insert(c, index))) return;
+		super.insert(c, index);
+	}
+	
+	@Override
+	public void
+	addAll(Collection<? extends C> c) {
+		ArrayList<C> l = new ArrayList<C>(c);
+		if(enqueue(() -> super.insertAll(l, size()))) return;
+		super.insertAll(l, size());
+	}
+	
+	@Override
+	public void
+	insertAll(Collection<? extends C> c, int index) {
+		ArrayList<C> l = new ArrayList<C>(c);
+		if(enqueue(() -> super.insertAll(l, index))) return;
+		super.insertAll(l, index);
+	}
+	
+	@Override
+	public C
+	set(int index, C c) {
+		if(enqueue(() -> super.set(index, c))) return null;
+		return super.set(index, c);
+	}
+	
+	@Override
+	public void
+	moveUp(C c) {
+		if(enqueue(() -> super.moveUp(c))) return;
+		super.moveUp(c);
+	}
+	
+	@Override
+	public void
+	moveDown(C c) {
+		if(enqueue(() -> super.moveDown(c))) return;
+		super.moveDown(c);
+	}
+	
+	@Override
+	public void
+	move(int from, int to) {
+		if(enqueue(() -> super.move(from, to))) return;
+		super.move(from, to);
+	}
+	
+	@Override
+	public void
+	move(int from, int to, int count) {
+		if(enqueue(() -> super.move(from, to, count))) return;
+		super.move(from, to, count);
+	}
+	
+	@Override
+	public boolean
+	remove(C c) {
+		if(enqueue(() -> removeComponent(c))) return false;
+		return removeComponent(c);
+	}
+	
+	private boolean
+	removeComponent(C c) {
+		int idx = indexOf(c);
+		if(idx < 0) return false;
+		
+		super.remove(idx);
+		return true;
+	}
+	
+	@Override
+	public C
+	remove(int index) {
+		if(enqueue(() -> super.remove(index))) return null;
+		return super.remove(index);
+	}
+	
+	@Override
+	public void
+	removeRange(int fromIndex, int toIndex) {
+		if(enqueue(() -> super.removeRange(fromIndex, toIndex))) return;
+		super.removeRange(fromIndex, toIndex);
+	}
+	
+	@Override
+	public void
+	replaceAll(Collection<? extends C> c) {
+		ArrayList<C> l = new ArrayList<C>(c);
+		if(enqueue(() -> super.replaceAll(l))) return;
+		super.replaceAll(l);
+	}
+	
+	@Override
+	public void
+	replaceContents(Collection<? extends C> c, Function<? super C, ?> key) {
+		ArrayList<C> l = new ArrayList<C>(c);
+		if(enqueue(() -> super.replaceContents(l, key))) return;
+		super.replaceContents(l, key);
+	}
+}
\ No newline at end of file
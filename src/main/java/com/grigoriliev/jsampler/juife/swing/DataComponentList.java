@@ -0,0 +1,178 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.swing.ListModel;
+
+
+/**
+ * A virtualized <code>ComponentList</code> which displays the values of a data
+ * model. Instead of holding a component per entry, the list binds the displayed
+ * values to a small pool of reusable row components created by a
+ * {@link ComponentListRowFactory}, so the number of the components scales with the
+ * number of the visible rows, not with the size of the data model.
+ * <p>A row component is notified about its selection state through the
+ * <code>selectionProbablyChanged</code> property change listeners each time
+ * it is bound to a value.</p>
+ * <p>The list displays its row model, which can't be changed through the list,
+ * so {@link #getModel} returns <code>null</code> and the displayed values should be
+ * changed through the data model.</p>
+ * @see DataComponentListModel
+ * @author Grigor Iliev
+ */
+public class DataComponentList<T, C extends Component> extends ComponentList {
+	private final DataComponentListModel<T, C> rowModel;
+	private Function<? super T, String> typeAheadValueExtractor = null;
+	
+	/**
+	 * Creates a new instance of <code>DataComponentList</code>.
+	 * @param dataModel The model providing the values to be displayed.
+	 * @param rowFactory Creates and binds the row components.
+	 */
+	public
+	DataComponentList(ListModel<T> dataModel, ComponentListRowFactory<T, C> rowFactory) {
+		rowModel = new DataComponentListModel<T, C>(dataModel, rowFactory) {
+			@Override
+			protected void
+			rowBound(C row, int index) { fireSelectionProbablyChanged(index); }
+		};
+		
+		setRowModel(rowModel);
+		setVirtualized(true);
+	}
+	
+	/**
+	 * Gets the model which presents the values of the data model as row components.
+	 * @return The model which presents the values of the data model as row components.
+	 */
+	@Override
+	public DataComponentListModel<T, C>
+	getRowModel() { return rowModel; }
+	
+	/**
+	 * The row model of this list can't be replaced.
+	 * @throws UnsupportedOperationException If the specified model
+	 * is not the row model of this list.
+	 * @see #setDataModel(ListModel)
+	 */
+	@Override
+	public void
+	setRowModel(ReadOnlyComponentListModel model) {
+		if(model != rowModel) {
+			throw new UnsupportedOperationException("The values should be changed through the data model");
+		}
+		
+		super.setRowModel(model);
+	}
+	
+	/**
+	 * Gets the model providing the values to be displayed.
+	 * @return The model providing the values to be displayed.
+	 */
+	public ListModel<T>
+	getDataModel() { return rowModel.getDataModel(); }
+	
+	/**
+	 * Sets the model providing the values to be displayed.
+	 * @param dataModel The new data model.
+	 */
+	public void
+	setDataModel(ListModel<T> dataModel) {
+		ListModel<T> oldModel = getDataModel();
+		rowModel.setDataModel(dataModel);
+		firePropertyChange("dataModel", oldModel, dataModel);
+	}
+	
+	/**
+	 * Gets the selected values in increasing index order. Unlike
+	 * {@link #getSelectedComponents}, this method doesn't bind row components.
+	 * @return The selected values.
+	 */
+	public List<T>
+	getSelectedValues() {
+		int[] indices = getSelectedIndices();
+		ArrayList<T> values = new ArrayList<T>(indices.length);
+		for(int i : indices) values.add(rowModel.getValueAt(i));
+		
+		return values;
+	}
+	
+	/**
+	 * Gets the function which provides the text of the values used by the type-ahead
+	 * search, or <code>null</code> if the texts are provided by the type-ahead extractor.
+	 * @see #setTypeAheadValueExtractor(Function)
+	 */
+	public Function<? super T, String>
+	getTypeAheadValueExtractor() { return typeAheadValueExtractor; }
+	
+	/**
+	 * Sets the function which provides the text of the values used by the type-ahead
+	 * search. Unlike the type-ahead extractor, which is applied to the row components,
+	 * this function is applied to the values of the data model, so the search doesn't
+	 * bind row components. When set, it is used instead of the type-ahead extractor.
+	 * @param extractor The function providing the text of a value (which may return
+	 * <code>null</code> if the value should not be found) or <code>null</code>.
+	 * @see #setTypeAheadExtractor(Function)
+	 */
+	public void
+	setTypeAheadValueExtractor(Function<? super T, String> extractor) {
+		Function<? super T, String> old = typeAheadValueExtractor;
+		typeAheadValueExtractor = extractor;
+		firePropertyChange("typeAheadValueExtractor", old, extractor);
+		if(getUI() != null) getUI().typeAheadTextsChanged();
+	}
+	
+	@Override
+	public boolean
+	isTypeAheadEnabled() { return typeAheadValueExtractor != null || super.isTypeAheadEnabled(); }
+	
+	/**
+	 * Gets the text of the value at the specified index, used by the type-ahead search.
+	 * If the type-ahead value extractor is set, it is applied to the value
+	 * without binding a row component.
+	 */
+	@Override
+	public String
+	getTypeAheadText(int index) {
+		if(typeAheadValueExtractor == null) return super.getTypeAheadText(index);
+		return typeAheadValueExtractor.apply(rowModel.getValueAt(index));
+	}
+	
+	/**
+	 * Notifies the row component at the specified index that its selection
+	 * state has changed. The values which are not bound to a row component are
+	 * not displayed, so they are skipped instead of binding a row component.
+	 */
+	@Override
+	public void
+	fireSelectionProbablyChanged(int index) {
+		if(!rowModel.isRowBound(index)) return;
+		super.fireSelectionProbablyChanged(index);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,355 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.swing.ListModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+
+/**
+ * A <code>ReadOnlyComponentListModel</code> which presents the values of a data model
+ * as row components. The row components are created by a
+ * {@link ComponentListRowFactory} and are bound to a value when requested
+ * through {@link #get}. When a row component is removed from the list, it is
+ * returned to a pool and reused to display another value, so when the list is
+ * virtualized the number of the row components scales with the number of the
+ * displayed rows, not with the size of the data model.
+ * <p>A row component requested through {@link #get} stays bound to its value while
+ * it is displayed. If it is not added to the list, it is returned to the pool after
+ * the current event is processed, so the returned component shouldn't be kept.</p>
+ * <p>The rows are derived from the data model and should be changed through
+ * the data model. The changes of the data model are reported to the listeners
+ * of this model. This model should be accessed only from the event dispatching thread.</p>
+ * @see DataComponentList
+ * @author Grigor Iliev
+ */
+public class DataComponentListModel<T, C extends Component> extends AbstractComponentListModel<C> {
+	/** The minimum number of released row components kept for reuse. */
+	private final static int MIN_FREE_ROWS = 16;
+	
+	private ListModel<T> dataModel;
+	private final ComponentListRowFactory<T, C> rowFactory;
+	
+	private final Map<Integer, C> boundRows = new HashMap<Integer, C>();
+	private final Map<C, Integer> rowIndices = new IdentityHashMap<C, Integer>();
+	private final ArrayDeque<C> freeRows = new ArrayDeque<C>();
+	private boolean sweepScheduled = false;
+	
+	private final Handler handler = new Handler();
+	
+	/**
+	 * Creates a new instance of <code>DataComponentListModel</code>.
+	 * @param dataModel The model providing the values to be displayed.
+	 * @param rowFactory Creates and binds the row components.
+	 */
+	public
+	DataComponentListModel(ListModel<T> dataModel, ComponentListRowFactory<T, C> rowFactory) {
+		if(dataModel == null) throw new IllegalArgumentException("dataModel can't be null");
+		if(rowFactory == null) throw new IllegalArgumentException("rowFactory can't be null");
+		
+		this.dataModel = dataModel;
+		this.rowFactory = rowFactory;
+		dataModel.addListDataListener(handler);
+	}
+	
+	/**
+	 * Gets the model providing the values to be displayed.
+	 * @return The model providing the values to be displayed.
+	 */
+	public ListModel<T>
+	getDataModel() { return dataModel; }
+	
+	/**
+	 * Sets the model providing the values to be displayed.
+	 * All row components are unbound and the change is
+	 * reported with at most two events.
+	 * @param dataModel The new data model.
+	 */
+	public void
+	setDataModel(ListModel<T> dataModel) {
+		if(dataModel == null) throw new IllegalArgumentException("dataModel can't be null");
+		if(this.dataModel == dataModel) return;
+		
+		beginBatch();
+		
+		try {
+			int oldSize = getSize();
+			this.dataModel.removeListDataListener(handler);
+			unbindRows(0, Integer.MAX_VALUE);
+			
+			this.dataModel = dataModel;
+			dataModel.addListDataListener(handler);
+			
+			if(oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+			if(getSize() > 0) fireIntervalAdded(this, 0, getSize() - 1);
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Gets the factory which creates and binds the row components.
+	 * @return The factory which creates and binds the row components.
+	 */
+	public ComponentListRowFactory<T, C>
+	getRowFactory() { return rowFactory; }
+	
+	/**
+	 * Gets the value at the specified index of the data model.
+	 * @param index The requested index.
+	 * @return The value at the specified index.
+	 */
+	public T
+	getValueAt(int index) { return dataModel.getElementAt(index); }
+	
+	/**
+	 * Determines whether a row component is currently
+	 * bound to the value at the specified index.
+	 */
+	public boolean
+	isRowBound(int index) { return boundRows.containsKey(index); }
+	
+	/**
+	 * Gets the row component bound to the value at the specified index. If there is no
+	 * such component, a component from the pool or a new component is bound to the value.
+	 * @param index The requested index.
+	 * @return The row component bound to the value at the specified index.
+	 * @throws ArrayIndexOutOfBoundsException If the index is out of range.
+	 */
+	@Override
+	public C
+	get(int index) {
+		if(index < 0 || index >= getSize()) {
+			throw new ArrayIndexOutOfBoundsException(index + " >= " + getSize());
+		}
+		
+		C row = boundRows.get(index);
+		if(row != null) return row;
+		
+		row = freeRows.isEmpty() ? createRow() : freeRows.pop();
+		rowFactory.bindRow(row, dataModel.getElementAt(index));
+		boundRows.put(index, row);
+		rowIndices.put(row, index);
+		
+		scheduleSweep();
+		rowBound(row, index);
+		
+		return row;
+	}
+	
+	/**
+	 * Invoked after the specified row component is bound to the value
+	 * at the specified index. The default implementation does nothing.
+	 */
+	protected void
+	rowBound(C row, int index) { }
+	
+	/**
+	 * Gets the row component bound to the value at the specified index.
+	 * <blockquote>
+	 * <b>Note:</b> The preferred method to use is {@link #get}.
+	 * </blockquote>
+	 * @param index The requested index.
+	 * @return The row component bound to the value at the specified index.
+	 */
+	@Override
+	public Object
+	getElementAt(int index) { return get(index); }
+	
+	/**
+	 * Gets the index of the value the specified row component is bound to.
+	 * @param o A row component.
+	 * @return The index of the value the specified row component
+	 * is bound to or -1 if the component is not bound.
+	 */
+	@Override
+	public int
+	indexOf(Object o) {
+		Integer idx = rowIndices.get(o);
+		return idx == null ? -1 : idx;
+	}
+	
+	/**
+	 * Gets the length of the list.
+	 * @return The length of the list.
+	 */
+	@Override
+	public int
+	getSize() { return dataModel.getSize(); }
+	
+	/**
+	 * Gets the length of the list.
+	 * @return The length of the list.
+	 */
+	@Override
+	public int
+	size() { return getSize(); }
+	
+	private C
+	createRow() {
+		C row = rowFactory.createRow();
+		row.addHierarchyListener(handler);
+		return row;
+	}
+	
+	/**
+	 * Unbinds the row component bound to the value at the specified index.
+	 * The component is returned to the pool if it is not displayed.
+	 */
+	private void
+	unbindRow(int index) {
+		C row = boundRows.remove(index);
+		if(row == null) return;
+		
+		rowIndices.remove(row);
+		if(row.getParent() == null) releaseRow(row);
+	}
+	
+	private void
+	unbindRows(int first, int last) {
+		ArrayList<Integer> indices = new ArrayList<Integer>(boundRows.keySet());
+		for(int i : indices) if(i >= first && i <= last) unbindRow(i);
+	}
+	
+	private void
+	releaseRow(C row) {
+		rowFactory.releaseRow(row);
+		if(freeRows.size() < Math.max(MIN_FREE_ROWS, boundRows.size())) freeRows.push(row);
+	}
+	
+	/** Updates the indices of the bound rows after the specified index. */
+	private void
+	shiftRows(int index, int delta) {
+		HashMap<Integer, C> shifted = new HashMap<Integer, C>();
+		
+		for(Map.Entry<Integer, C> e : boundRows.entrySet()) {
+			int i = e.getKey();
+			if(i >= index) i += delta;
+			shifted.put(i, e.getValue());
+			rowIndices.put(e.getValue(), i);
+		}
+		
+		boundRows.clear();
+		boundRows.putAll(shifted);
+	}
+	
+	/**
+	 * Schedules the release of the bound row components which
+	 * are not added to the list by the end of the current event.
+	 */
+	private void
+	scheduleSweep() {
+		if(sweepScheduled) return;
+		sweepScheduled = true;
+		
+		SwingUtilities.invokeLater(new Runnable() {
+			public void
+			run() {
+				sweepScheduled = false;
+				
+				ArrayList<Integer> indices = new ArrayList<Integer>(boundRows.keySet());
+				for(int i : indices) {
+					if(boundRows.get(i).getParent() == null) unbindRow(i);
+				}
+			}
+		});
+	}
+	
+	private class Handler implements ListDataListener, HierarchyListener {
+		@Override
+		public void
+		intervalAdded(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.max(e.getIndex0(), e.getIndex1());
+			
+			if(first < 0) unbindRows(0, Integer.MAX_VALUE);
+			else shiftRows(first, last - first + 1);
+			
+			fireIntervalAdded(DataComponentListModel.this, e.getIndex0(), e.getIndex1());
+		}
+		
+		@Override
+		public void
+		intervalRemoved(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.max(e.getIndex0(), e.getIndex1());
+			
+			if(first < 0) {
+				unbindRows(0, Integer.MAX_VALUE);
+			} else {
+				unbindRows(first, last);
+				shiftRows(last + 1, first - last - 1);
+			}
+			
+			fireIntervalRemoved(DataComponentListModel.this, e.getIndex0(), e.getIndex1());
+		}
+		
+		@Override
+		public void
+		contentsChanged(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.max(e.getIndex0(), e.getIndex1());
+			if(first < 0) {
+				first = 0;
+				last = Integer.MAX_VALUE;
+			}
+			
+			// the displayed rows are rebound in place
+			int size = getSize();
+			unbindRows(size, Integer.MAX_VALUE);
+			
+			for(Map.Entry<Integer, C> en : boundRows.entrySet()) {
+				int i = en.getKey();
+				if(i >= first && i <= last) rowFactory.bindRow(en.getValue(), dataModel.getElementAt(i));
+			}
+			
+			fireContentsChanged(DataComponentListModel.this, e.getIndex0(), e.getIndex1());
+		}
+		
+		@Override
+		public void
+		hierarchyChanged(HierarchyEvent e) {
+			if((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) == 0) return;
+			if(e.getChanged() != e.getComponent() || e.getChanged().getParent() != null) return;
+			
+			// the row is removed from the list
+			@SuppressWarnings("unchecked")
+			C row = (C)e.getComponent();
+			Integer idx = rowIndices.get(row);
+			if(idx != null) unbindRow(idx);
+			else releaseRow(row);
+		}
+	}
+}
\ No newline at end of file
@@ -24,22 +24,61 @@ package com.grigoriliev.jsampler.juife.swing;
 
 import java.awt.Component;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Vector;
 
-import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
 
 /**
  * This class provides default implementation of the <code>ComponentListModel</code> interface.
+ * By default the components are stored in a <code>Vector</code>. A model created with
+ * {@link #DefaultComponentListModel(boolean)} stores the components in an unsynchronized
+ * array instead and is intended to be accessed from the event dispatching thread only.
  * @author Grigor Iliev
  */
 public class DefaultComponentListModel<C extends Component>
-			extends AbstractListModel implements ComponentListModel<C> {
+			extends AbstractComponentListModel<C> implements ComponentListModel<C> {
 	
-	private final Vector<C> list = new Vector<C>();
-	private boolean componentListIsAdjusting = false;
+	private final List<C> list;
+	private final boolean edtConfined;
+	
+	/** Maps the components to their positions when the identity index is enabled. */
+	private ComponentListIndex<C> identityIndex = null;
 	
 	/** Creates a new instance of DefaultComponentListModel */
-	public DefaultComponentListModel() {
+	public DefaultComponentListModel() { this(false); }
+	
+	/**
+	 * Creates a new instance of <code>DefaultComponentListModel</code>.
+	 * @param edtConfined Specifies whether the model will be accessed only from the
+	 * event dispatching thread. If <code>true</code>, the components are stored in an
+	 * unsynchronized array, which avoids the locking overhead of <code>Vector</code>
+	 * on each access during layout, painting and hit testing. When assertions are
+	 * enabled, an access from another thread results in an <code>AssertionError</code>.
+	 */
+	public
+	DefaultComponentListModel(boolean edtConfined) {
+		this.edtConfined = edtConfined;
+		list = edtConfined ? new ComponentArray<C>() : new Vector<C>();
+	}
+	
+	/**
+	 * Determines whether this model is confined to the event dispatching thread.
+	 * @see #DefaultComponentListModel(boolean)
+	 */
+	public boolean
+	isEdtConfined() { return edtConfined; }
+	
+	/**
+	 * Used in assertions to check that an EDT-confined
+	 * model is accessed from the event dispatching thread.
+	 */
+	private boolean
+	checkThread() {
+		if(!edtConfined || SwingUtilities.isEventDispatchThread()) return true;
+		throw new AssertionError("EDT-confined model accessed from " + Thread.currentThread());
 	}
 	
 	/**
@@ -50,7 +89,10 @@ public class DefaultComponentListModel<C extends Component>
 	 */
 	@Override
 	public C
-	get(int index) { return list.get(index); }
+	get(int index) {
+		assert checkThread();
+		return list.get(index);
+	}
 	
 	/**
 	 * Gets the value at the specified index.
@@ -62,7 +104,7 @@ public class DefaultComponentListModel<C extends Component>
 	 */
 	@Override
 	public Object
-	getElementAt(int index) { return list.get(index); }
+	getElementAt(int index) { return get(index); }
 	
 	/**
 	 * Inserts the specified component at the specified index.
@@ -73,7 +115,14 @@ public class DefaultComponentListModel<C extends Component>
 	@Override
 	public void
 	insert(C c, int index) {
-		list.insertElementAt(c, index);
+		assert checkThread();
+		
+		if(index < 0 || index > list.size()) {
+			throw new ArrayIndexOutOfBoundsException(index + " > " + list.size());
+		}
+		
+		list.add(index, c);
+		componentsAdded(index, 1);
 		fireIntervalAdded(this, index, index);
 	}
 	
@@ -84,11 +133,45 @@ public class DefaultComponentListModel<C extends Component>
 	@Override
 	public void
 	add(C c) {
+		assert checkThread();
 		int idx = list.size();
 		list.add(c);
+		componentsAdded(idx, 1);
 		fireIntervalAdded(this, idx, idx);
 	}
 	
+	/**
+	 * Adds the specified components at the end of the list.
+	 * The change is reported with a single event.
+	 * @param c The components to be added.
+	 */
+	@Override
+	public void
+	addAll(Collection<? extends C> c) { insertAll(c, list.size()); }
+	
+	/**
+	 * Inserts the specified components at the specified index.
+	 * The change is reported with a single event.
+	 * @param c The components to be inserted.
+	 * @param index The position of the first inserted component.
+	 * @throws ArrayIndexOutOfBoundsException  If the index is invalid.
+	 */
+	@Override
+	public void
+	insertAll(Collection<? extends C> c, int index) {
+		assert checkThread();
+		
+		if(index < 0 || index > list.size()) {
+			throw new ArrayIndexOutOfBoundsException(index + " > " + list.size());
+		}
+		
+		if(c.isEmpty()) return;
+		
+		list.addAll(index, c);
+		componentsAdded(index, c.size());
+		fireIntervalAdded(this, index, index + c.size() - 1);
+	}
+	
 	/**
 	 * Replaces the component at the specified position with the specified component.
 	 * @param index The index of the component to replace.
@@ -98,10 +181,12 @@ public class DefaultComponentListModel<C extends Component>
 	@Override
 	public C
 	set(int index, C c) {
-		c = list.set(index, c);
+		assert checkThread();
+		C old = list.set(index, c);
+		componentReplaced(old, c, index);
 		fireContentsChanged(this, index, index);
 		
-		return c;
+		return old;
 	}
 	
 	/**
@@ -117,10 +202,57 @@ public class DefaultComponentListModel<C extends Component>
 			
 		list.set(idx, c2);
 		list.set(idx - 1, c);
+		componentsSwapped(idx - 1, idx);
 		
 		fireContentsChanged(this, idx - 1, idx);
 	}
 	
+	/**
+	 * Moves the component at the specified position to a new position.
+	 * The change is reported with a single event.
+	 * @param from The current position of the component.
+	 * @param to The new position of the component.
+	 * @throws ArrayIndexOutOfBoundsException If an index is out of range.
+	 */
+	@Override
+	public void
+	move(int from, int to) {
+		assert checkThread();
+		
+		if(from < 0 || from >= list.size()) throw new ArrayIndexOutOfBoundsException(from);
+		if(to < 0 || to >= list.size()) throw new ArrayIndexOutOfBoundsException(to);
+		if(from == to) return;
+		
+		list.add(to, list.remove(from));
+		componentsMoved(Math.min(from, to), Math.max(from, to));
+		fireContentsChanged(this, Math.min(from, to), Math.max(from, to));
+	}
+	
+	/**
+	 * Moves the specified number of consecutive components to a new position,
+	 * keeping their order. The components are rotated in place in linear time
+	 * and the change is reported with a single event.
+	 * @param from The current position of the first component to move.
+	 * @param to The position of the first moved component after the move.
+	 * @param count The number of components to move.
+	 * @throws ArrayIndexOutOfBoundsException If an index is out of range.
+	 */
+	@Override
+	public void
+	move(int from, int to, int count) {
+		assert checkThread();
+		
+		if(count < 0) throw new IllegalArgumentException("Negative count: " + count);
+		if(from < 0 || from + count > list.size()) throw new ArrayIndexOutOfBoundsException(from);
+		if(to < 0 || to + count > list.size()) throw new ArrayIndexOutOfBoundsException(to);
+		if(count == 0 || from == to) return;
+		
+		int first = Math.min(from, to), last = Math.max(from, to) + count - 1;
+		Collections.rotate(list.subList(first, last + 1), from < to ? -count : count);
+		componentsMoved(first, last);
+		fireContentsChanged(this, first, last);
+	}
+	
 	/**
 	 * Moves the specified component one position down in the list.
 	 * @param c The component to be moved down.
@@ -134,6 +266,7 @@ public class DefaultComponentListModel<C extends Component>
 			
 		list.set(idx, c2);
 		list.set(idx + 1, c);
+		componentsSwapped(idx, idx + 1);
 		
 		fireContentsChanged(this, idx, idx + 1);
 	}
@@ -147,12 +280,11 @@ public class DefaultComponentListModel<C extends Component>
 	@Override
 	public boolean
 	remove(C c) {
-		int idx = list.indexOf(c);
-		boolean b = list.remove(c);
-		
-		if(idx >= 0) fireIntervalRemoved(this, idx, idx);
+		int idx = indexOf(c);
+		if(idx < 0) return false;
 		
-		return b;
+		remove(idx);
+		return true;
 	}
 	
 	/**
@@ -164,41 +296,154 @@ public class DefaultComponentListModel<C extends Component>
 	@Override
 	public C
 	remove(int index) {
+		assert checkThread();
 		C c = list.remove(index);
+		componentRemoved(c, index);
 		fireIntervalRemoved(this, index, index);
 		
 		return c;
 	}
 	
 	/**
-	 * Determines whether there are known upcoming changes to the 
-	 * component list, which should be considered as part of a single action.
+	 * Removes the components in the specified range (inclusive).
+	 * The change is reported with a single event.
+	 * @param fromIndex The index of the first component to be removed.
+	 * @param toIndex The index of the last component to be removed.
+	 * @throws ArrayIndexOutOfBoundsException If an index is out of range.
+	 * @throws IllegalArgumentException If <code>fromIndex</code>
+	 * is greater than <code>toIndex</code>.
 	 */
 	@Override
-	public boolean
-	getComponentListIsAdjusting() {
-		return componentListIsAdjusting;
+	public void
+	removeRange(int fromIndex, int toIndex) {
+		assert checkThread();
+		
+		if(fromIndex > toIndex) {
+			throw new IllegalArgumentException("fromIndex must be <= toIndex");
+		}
+		
+		if(fromIndex < 0) throw new ArrayIndexOutOfBoundsException(fromIndex);
+		if(toIndex >= list.size()) throw new ArrayIndexOutOfBoundsException(toIndex);
+		
+		for(int i = fromIndex; i <= toIndex; i++) componentRemoved(list.get(i), fromIndex);
+		list.subList(fromIndex, toIndex + 1).clear();
+		fireIntervalRemoved(this, fromIndex, toIndex);
 	}
 	
 	/**
-	 * Sets whether there are upcoming changes to the 
-	 * component list which should be considered part of a single action.
+	 * Replaces the content of the list with the specified components.
+	 * The change is reported with at most two events - one for the added or
+	 * removed tail of the list and one for the replaced components.
+	 * @param c The new content of the list.
 	 */
 	@Override
 	public void
-	setComponentListIsAdjusting(boolean b) {
-		componentListIsAdjusting = b;
+	replaceAll(Collection<? extends C> c) {
+		assert checkThread();
+		
+		int oldSize = list.size();
+		list.clear();
+		list.addAll(c);
+		int newSize = list.size();
+		componentsCleared();
+		
+		if(newSize > oldSize) fireIntervalAdded(this, oldSize, newSize - 1);
+		else if(newSize < oldSize) fireIntervalRemoved(this, newSize, oldSize - 1);
+		
+		int n = Math.min(oldSize, newSize);
+		if(n > 0) fireContentsChanged(this, 0, n - 1);
 	}
 	
 	/**
 	 * Gets the index of the first occurrence of the given argument, testing
-	 * for equality using the <code>equals</code> method.
+	 * for equality using the <code>equals</code> method. If the identity index
+	 * is enabled, the argument is looked up by reference in <code>O(log n)</code> time.
 	 * @param o An object.
 	 * @return The index of the first occurrence of the given argument or -1
 	 * if the object is not found.
+	 * @see #setIdentityIndexEnabled
 	 */
+	@Override
 	public int
-	indexOf(Object o) { return list.indexOf(o); }
+	indexOf(Object o) {
+		assert checkThread();
+		
+		if(identityIndex == null) return list.indexOf(o);
+		return identityIndex.indexOf(o);
+	}
+	
+	/**
+	 * Determines whether the components are looked up through an identity hash index.
+	 * @see #setIdentityIndexEnabled
+	 */
+	public boolean
+	isIdentityIndexEnabled() { return identityIndex != null; }
+	
+	/**
+	 * Sets whether an identity hash index mapping the components to their positions
+	 * should be maintained. When enabled, {@link #indexOf}, {@link #remove(Component)},
+	 * {@link #moveUp} and {@link #moveDown} look up the components by reference
+	 * in <code>O(log n)</code> time instead of scanning the list. The index is updated
+	 * on each change of the list, which takes <code>O(log n)</code> time per added,
+	 * removed or replaced component. The index is disabled by default.
+	 * <p>Note that the index assumes that a component is added to the list at most once.</p>
+	 * @param b Specifies whether the identity index should be enabled.
+	 */
+	public void
+	setIdentityIndexEnabled(boolean b) {
+		if(b == isIdentityIndexEnabled()) return;
+		if(!b) {
+			identityIndex = null;
+			return;
+		}
+		
+		identityIndex = new ComponentListIndex<C>(true);
+		identityIndex.inserted(0, list.size(), list::get);
+	}
+	
+	/** Invoked after the specified number of components are inserted at the specified position. */
+	void
+	componentsAdded(int index, int count) {
+		if(identityIndex != null) identityIndex.inserted(index, count, list::get);
+	}
+	
+	/** Invoked after the components in the specified interval (inclusive) are rearranged. */
+	void
+	componentsMoved(int first, int last) {
+		if(identityIndex != null) {
+			for(int i = first; i <= last; i++) identityIndex.replaced(i, list.get(i));
+		}
+	}
+	
+	/** Invoked after the components at the specified positions are swapped. */
+	void
+	componentsSwapped(int index1, int index2) {
+		if(identityIndex != null) {
+			identityIndex.replaced(index1, list.get(index1));
+			identityIndex.replaced(index2, list.get(index2));
+		}
+	}
+	
+	/** Invoked when the specified component is removed from the specified position. */
+	void
+	componentRemoved(C c, int index) {
+		if(identityIndex != null) identityIndex.removed(index);
+	}
+	
+	/** Invoked after the component at the specified position is replaced. */
+	void
+	componentReplaced(C oldComponent, C c, int index) {
+		if(identityIndex != null) identityIndex.replaced(index, c);
+	}
+	
+	/** Invoked after the whole content of the list is replaced. */
+	void
+	componentsCleared() {
+		if(identityIndex != null) {
+			identityIndex.clear();
+			identityIndex.inserted(0, list.size(), list::get);
+		}
+	}
 	
 	/**
 	 * Gets the length of the list.
@@ -206,7 +451,7 @@ public class DefaultComponentListModel<C extends Component>
 	 */
 	@Override
 	public int
-	getSize() { return list.size(); }
+	getSize() { return size(); }
 	
 	/**
 	 * Gets the length of the list.
@@ -214,5 +459,8 @@ public class DefaultComponentListModel<C extends Component>
 	 */
 	@Override
 	public int
-	size() { return list.size(); }
+	size() {
+		assert checkThread();
+		return list.size();
+	}
 }
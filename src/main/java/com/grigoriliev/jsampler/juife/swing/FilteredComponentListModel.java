@@ -0,0 +1,237 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import javax.swing.event.ListDataEvent;
+
+
+/**
+ * A view of a <code>ComponentListModel</code>, which presents only the components
+ * accepted by a filter, in the order of the source model. When the source model or
+ * the filter changes, only the affected rows are reevaluated and the listeners
+ * are notified with an event per contiguous run of inserted or removed rows,
+ * so the selection of the unaffected rows is kept. The replaced components
+ * are reported in a single batch.
+ * @author Grigor Iliev
+ */
+public class FilteredComponentListModel<C extends Component> extends AbstractComponentListViewModel<C> {
+	private final static int NONE = -1;
+	
+	private Predicate<? super C> filter;
+	
+	/**
+	 * Creates a new instance of <code>FilteredComponentListModel</code>,
+	 * which presents all components of the specified model.
+	 * @param sourceModel The model whose components are presented.
+	 */
+	public
+	FilteredComponentListModel(ComponentListModel<C> sourceModel) { this(sourceModel, null); }
+	
+	/**
+	 * Creates a new instance of <code>FilteredComponentListModel</code>.
+	 * @param sourceModel The model whose components are presented.
+	 * @param filter Determines which components are presented or
+	 * <code>null</code> if all components should be presented.
+	 */
+	public
+	FilteredComponentListModel(ComponentListModel<C> sourceModel, Predicate<? super C> filter) {
+		super(sourceModel);
+		this.filter = filter;
+		
+		int[] rows = getAcceptedRows();
+		setRows(rows, rows.length);
+	}
+	
+	/**
+	 * Gets the filter which determines the presented components.
+	 * @return The filter or <code>null</code> if all components are presented.
+	 */
+	public Predicate<? super C>
+	getFilter() { return filter; }
+	
+	/**
+	 * Sets the filter which determines the presented components.
+	 * @param filter The new filter or <code>null</code> if
+	 * all components should be presented.
+	 */
+	public void
+	setFilter(Predicate<? super C> filter) {
+		this.filter = filter;
+		refilter();
+	}
+	
+	/**
+	 * Reevaluates the filter for all components of the source model. This method
+	 * should be invoked when the properties the filter depends on have changed.
+	 */
+	public void
+	refilter() {
+		int n = getSourceModel().getSize();
+		if(n > 0) update(0, n - 1, false);
+	}
+	
+	@Override
+	protected void
+	sourceIntervalAdded(int first, int last) {
+		shiftModelIndices(first, last - first + 1);
+		update(first, last, false);
+	}
+	
+	@Override
+	protected void
+	sourceIntervalRemoved(int first, int last) {
+		int lo = lowerBound(first);
+		int hi = lowerBound(last + 1);
+		
+		if(hi > lo) removeRows(lo, hi - 1);
+		shiftModelIndices(last + 1, first - last - 1);
+		if(hi > lo) fireIntervalRemoved(this, lo, hi - 1);
+	}
+	
+	@Override
+	protected void
+	sourceContentsChanged(int first, int last) {
+		// the rows not processed yet may already hold the new components,
+		// so the changes are reported when all rows are updated
+		beginBatch();
+		try { update(first, last, true); }
+		finally { endBatch(); }
+	}
+	
+	@Override
+	protected void
+	reset() {
+		int oldSize = getSize();
+		int[] rows = getAcceptedRows();
+		setRows(rows, rows.length);
+		
+		if(rows.length > oldSize) fireIntervalAdded(this, oldSize, rows.length - 1);
+		else if(rows.length < oldSize) fireIntervalRemoved(this, rows.length, oldSize - 1);
+		
+		int n = Math.min(oldSize, rows.length);
+		if(n > 0) fireContentsChanged(this, 0, n - 1);
+	}
+	
+	private boolean
+	accepts(int modelIndex) {
+		return filter == null || filter.test(getSourceModel().get(modelIndex));
+	}
+	
+	private int[]
+	getAcceptedRows() {
+		int n = getSourceModel().getSize();
+		int[] rows = new int[n];
+		int count = 0;
+		
+		for(int i = 0; i < n; i++) if(accepts(i)) rows[count++] = i;
+		
+		return count == n ? rows : Arrays.copyOf(rows, count);
+	}
+	
+	/** Gets the view index of the first row whose source model index is not less than the specified one. */
+	private int
+	lowerBound(int modelIndex) {
+		int lo = 0, hi = getSize();
+		
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(convertRowIndexToModel(mid) < modelIndex) lo = mid + 1;
+			else hi = mid;
+		}
+		
+		return lo;
+	}
+	
+	/**
+	 * Reevaluates the filter for the specified interval of the source model
+	 * and notifies the listeners about each contiguous run of changed rows.
+	 * @param fireChanged Specifies whether the rows which remain
+	 * in the view should be reported as changed.
+	 */
+	private void
+	update(int first, int last, boolean fireChanged) {
+		int v = lowerBound(first);
+		int runType = NONE, runStart = v, runCount = 0;
+		int[] added = null;
+		
+		for(int i = first; i <= last; i++) {
+			boolean was = v < getSize() && convertRowIndexToModel(v) == i;
+			boolean now = accepts(i);
+			if(!was && !now) continue;
+			
+			int type;
+			if(!was) type = ListDataEvent.INTERVAL_ADDED;
+			else if(!now) type = ListDataEvent.INTERVAL_REMOVED;
+			else type = fireChanged ? ListDataEvent.CONTENTS_CHANGED : NONE;
+			
+			if(type != runType) {
+				v = endRun(runType, runStart, runCount, added);
+				runType = type;
+				runStart = v;
+				runCount = 0;
+			}
+			
+			if(type == ListDataEvent.INTERVAL_ADDED) {
+				if(added == null) added = new int[last - first + 1];
+				added[runCount] = i;
+			} else {
+				// the rows to be removed are skipped until the end of the run
+				v++;
+			}
+			
+			runCount++;
+		}
+		
+		endRun(runType, runStart, runCount, added);
+	}
+	
+	/**
+	 * Applies the specified run of changes and notifies the listeners.
+	 * @return The view index following the run.
+	 */
+	private int
+	endRun(int type, int start, int count, int[] added) {
+		if(count == 0) return start;
+		
+		switch(type) {
+		case ListDataEvent.INTERVAL_ADDED:
+			insertRows(start, added, count);
+			fireIntervalAdded(this, start, start + count - 1);
+			break;
+		case ListDataEvent.INTERVAL_REMOVED:
+			removeRows(start, start + count - 1);
+			fireIntervalRemoved(this, start, start + count - 1);
+			return start;
+		case ListDataEvent.CONTENTS_CHANGED:
+			fireContentsChanged(this, start, start + count - 1);
+			break;
+		}
+		
+		return start + count;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,495 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+
+/**
+ * A view of a <code>ComponentListModel</code>, which presents the components grouped
+ * by a group key, with a header component before the components of each group.
+ * The groups are presented in the order of the first appearance of their keys in the
+ * source model and the components of a group are presented in the order of the source
+ * model. The components of a collapsed group are not presented at all, so they are
+ * neither laid out nor painted by the list - only the header of the group is presented.
+ * <p>Collapsing or expanding a group is reported with a single event. Inserting or
+ * removing source components regroups the view in linear time and reports the changed
+ * rows with at most two events. The changes of the source components, which don't
+ * change their group keys, are reported without regrouping.</p>
+ * <p>The rows are derived from the source model and should be changed through the source model,
+ * so the model is displayed with {@link ComponentList#setRowModel}.</p>
+ * @author Grigor Iliev
+ */
+public class GroupedComponentListModel<C extends Component>
+			extends AbstractComponentListModel<Component> implements CollapsibleComponentListModel<Component> {
+	private final ComponentListModel<C> sourceModel;
+	private final Function<? super C, ?> groupKey;
+	private final Function<Object, ? extends Component> headerFactory;
+	
+	/** The group keys of the source model components. */
+	private final ArrayList<Object> sourceKeys = new ArrayList<Object>();
+	
+	/** The groups in view order, mapped to their size and the view index of their header. */
+	private Map<Object, int[]> groups = new LinkedHashMap<Object, int[]>();
+	
+	private final Map<Object, Component> headers = new HashMap<Object, Component>();
+	private final Set<Object> collapsedGroups = new HashSet<Object>();
+	
+	private Component[] rows = new Component[0];
+	
+	/** The source model indices of the rows in view order (-1 for the headers). */
+	private int[] viewToModel = new int[0];
+	
+	/** The view indices of the source model components (-1 if collapsed). */
+	private int[] modelToView = new int[0];
+	
+	private final ListDataListener handler = new ListDataListener() {
+		@Override
+		public void
+		intervalAdded(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.max(e.getIndex0(), e.getIndex1());
+			
+			if(first < 0) {
+				reset();
+				return;
+			}
+			
+			ArrayList<Object> keys = new ArrayList<Object>(last - first + 1);
+			for(int i = first; i <= last; i++) keys.add(getSourceKey(i));
+			sourceKeys.addAll(first, keys);
+			update();
+		}
+		
+		@Override
+		public void
+		intervalRemoved(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.max(e.getIndex0(), e.getIndex1());
+			
+			if(first < 0 || last >= sourceKeys.size()) {
+				reset();
+				return;
+			}
+			
+			sourceKeys.subList(first, last + 1).clear();
+			update();
+		}
+		
+		@Override
+		public void
+		contentsChanged(ListDataEvent e) {
+			int first = Math.min(e.getIndex0(), e.getIndex1());
+			int last = Math.min(Math.max(e.getIndex0(), e.getIndex1()), sourceModel.getSize() - 1);
+			
+			if(first < 0 || sourceKeys.size() != sourceModel.getSize()) reset();
+			else if(first <= last) sourceContentsChanged(first, last);
+		}
+	};
+	
+	/**
+	 * Creates a new instance of <code>GroupedComponentListModel</code>.
+	 * @param sourceModel The model whose components are presented.
+	 * @param groupKey Provides the key of the group a component belongs to.
+	 * @param headerFactory Creates the header component of the group with the
+	 * specified key. The header is created when the first component of the group
+	 * appears and is kept while the group is not empty.
+	 */
+	public
+	GroupedComponentListModel (
+		ComponentListModel<C> sourceModel,
+		Function<? super C, ?> groupKey,
+		Function<Object, ? extends Component> headerFactory
+	) {
+		if(sourceModel == null) throw new IllegalArgumentException("sourceModel can't be null");
+		if(groupKey == null) throw new IllegalArgumentException("groupKey can't be null");
+		if(headerFactory == null) throw new IllegalArgumentException("headerFactory can't be null");
+		
+		this.sourceModel = sourceModel;
+		this.groupKey = groupKey;
+		this.headerFactory = headerFactory;
+		
+		sourceModel.addListDataListener(handler);
+		reset();
+	}
+	
+	/**
+	 * Gets the model whose components are presented by this view model.
+	 * @return The source model.
+	 */
+	public ComponentListModel<C>
+	getSourceModel() { return sourceModel; }
+	
+	/**
+	 * Stops listening for changes of the source model. This method should be
+	 * invoked when the view model is no longer used but the source model is.
+	 */
+	public void
+	dispose() { sourceModel.removeListDataListener(handler); }
+	
+	/**
+	 * Reevaluates the group keys of all source components. This method should be
+	 * invoked when the group keys have changed without notification from the source model.
+	 */
+	public void
+	regroup() { reset(); }
+	
+	/**
+	 * Gets the keys of the groups in view order.
+	 * @return An unmodifiable list of the keys of the non-empty groups.
+	 */
+	public List<Object>
+	getGroupKeys() { return Collections.unmodifiableList(new ArrayList<Object>(groups.keySet())); }
+	
+	/**
+	 * Gets the number of components in the specified group,
+	 * including the components which are not presented because the group is collapsed.
+	 * @param key The key of the group.
+	 * @return The number of components in the group or 0 if there is no such group.
+	 */
+	public int
+	getGroupSize(Object key) {
+		int[] g = groups.get(key);
+		return g == null ? 0 : g[0];
+	}
+	
+	/**
+	 * Gets the header component of the specified group.
+	 * @param key The key of the group.
+	 * @return The header of the group or <code>null</code> if there is no such group.
+	 */
+	public Component
+	getHeader(Object key) { return groups.containsKey(key) ? headers.get(key) : null; }
+	
+	/**
+	 * Gets the view index of the header of the specified group.
+	 * @param key The key of the group.
+	 * @return The index of the header or -1 if there is no such group.
+	 */
+	@Override
+	public int
+	getHeaderIndex(Object key) {
+		int[] g = groups.get(key);
+		return g == null ? -1 : g[1];
+	}
+	
+	/**
+	 * Determines whether the row at the specified view index is a group header.
+	 * @throws ArrayIndexOutOfBoundsException If the index is out of range.
+	 */
+	public boolean
+	isHeader(int index) { return convertRowIndexToModel(index) == -1; }
+	
+	/**
+	 * Gets the key of the group the row at the specified view index belongs to.
+	 * @param index The view index of a component or a header.
+	 * @return The key of the group.
+	 * @throws ArrayIndexOutOfBoundsException If the index is out of range.
+	 */
+	@Override
+	public Object
+	getGroupKey(int index) {
+		int i = convertRowIndexToModel(index);
+		if(i != -1) return sourceKeys.get(i);
+		
+		for(Map.Entry<Object, int[]> e : groups.entrySet()) {
+			if(e.getValue()[1] == index) return e.getKey();
+		}
+		
+		throw new IllegalStateException("No group at " + index);
+	}
+	
+	/**
+	 * Determines whether the specified group is collapsed.
+	 * @param key The key of the group.
+	 */
+	@Override
+	public boolean
+	isCollapsed(Object key) { return collapsedGroups.contains(key); }
+	
+	/**
+	 * Collapses or expands the specified group. The components of a collapsed group
+	 * are removed from the view, which is reported with a single event. A group
+	 * can be collapsed before its first component is added to the source model.
+	 * @param key The key of the group.
+	 * @param b Specifies whether the group should be collapsed.
+	 */
+	@Override
+	public void
+	setCollapsed(Object key, boolean b) {
+		if(b == isCollapsed(key)) return;
+		
+		if(b) collapsedGroups.add(key);
+		else collapsedGroups.remove(key);
+		
+		if(groups.containsKey(key)) update();
+	}
+	
+	/**
+	 * Collapses the specified group if it is expanded and expands it otherwise.
+	 * @param key The key of the group.
+	 */
+	public void
+	toggleCollapsed(Object key) { setCollapsed(key, !isCollapsed(key)); }
+	
+	/**
+	 * Converts the specified view index to a source model index.
+	 * @param viewIndex The index of a row in the view.
+	 * @return The index of the corresponding component in the
+	 * source model or -1 if the row is a group header.
+	 * @throws ArrayIndexOutOfBoundsException If the index is out of range.
+	 */
+	public int
+	convertRowIndexToModel(int viewIndex) {
+		if(viewIndex < 0 || viewIndex >= rows.length) {
+			throw new ArrayIndexOutOfBoundsException(viewIndex + " >= " + rows.length);
+		}
+		
+		return viewToModel[viewIndex];
+	}
+	
+	/**
+	 * Converts the specified source model index to a view index.
+	 * @param modelIndex The index of a component in the source model.
+	 * @return The index of the corresponding row in the view or -1
+	 * if the component is not presented because its group is collapsed.
+	 */
+	public int
+	convertRowIndexToView(int modelIndex) {
+		if(modelIndex < 0 || modelIndex >= modelToView.length) return -1;
+		return modelToView[modelIndex];
+	}
+	
+	private Object
+	getSourceKey(int index) { return groupKey.apply(sourceModel.get(index)); }
+	
+	/** Reevaluates the group keys of all source components and updates the view. */
+	private void
+	reset() {
+		sourceKeys.clear();
+		for(int i = 0; i < sourceModel.getSize(); i++) sourceKeys.add(getSourceKey(i));
+		update();
+	}
+	
+	/**
+	 * Reports the changed source components in place, if their group keys
+	 * haven't changed. Otherwise, regroups the view.
+	 */
+	private void
+	sourceContentsChanged(int first, int last) {
+		boolean regroup = false;
+		
+		for(int i = first; i <= last; i++) {
+			Object key = getSourceKey(i);
+			if(!regroup && !Objects.equals(key, sourceKeys.get(i))) regroup = true;
+			sourceKeys.set(i, key);
+		}
+		
+		if(regroup) {
+			update();
+			return;
+		}
+		
+		beginBatch();
+		try {
+			int runStart = -1, runEnd = -1;
+			
+			for(int i = first; i <= last; i++) {
+				int v = modelToView[i];
+				if(v == -1) continue;
+				rows[v] = sourceModel.get(i);
+				
+				if(v == runEnd + 1 && runStart != -1) {
+					runEnd = v;
+					continue;
+				}
+				
+				if(runStart != -1) fireContentsChanged(this, runStart, runEnd);
+				runStart = runEnd = v;
+			}
+			
+			if(runStart != -1) fireContentsChanged(this, runStart, runEnd);
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Rebuilds the view from the group keys of the source components
+	 * and reports the rows between the unchanged head and tail of the view.
+	 */
+	private void
+	update() {
+		int n = sourceKeys.size();
+		
+		LinkedHashMap<Object, int[]> newGroups = new LinkedHashMap<Object, int[]>();
+		for(int i = 0; i < n; i++) {
+			newGroups.computeIfAbsent(sourceKeys.get(i), k -> new int[2])[0]++;
+		}
+		
+		int count = 0;
+		for(Map.Entry<Object, int[]> e : newGroups.entrySet()) {
+			int[] g = e.getValue();
+			g[1] = count;
+			count += 1 + (isCollapsed(e.getKey()) ? 0 : g[0]);
+		}
+		
+		headers.keySet().retainAll(newGroups.keySet());
+		
+		Component[] newRows = new Component[count];
+		int[] newViewToModel = new int[count];
+		int[] newModelToView = new int[n];
+		
+		// the next free position of each group
+		HashMap<Object, int[]> positions = new HashMap<Object, int[]>();
+		
+		for(Map.Entry<Object, int[]> e : newGroups.entrySet()) {
+			Object key = e.getKey();
+			int idx = e.getValue()[1];
+			newRows[idx] = headers.computeIfAbsent(key, headerFactory);
+			newViewToModel[idx] = -1;
+			positions.put(key, new int[] { idx + 1 });
+		}
+		
+		for(int i = 0; i < n; i++) {
+			Object key = sourceKeys.get(i);
+			if(isCollapsed(key)) {
+				newModelToView[i] = -1;
+				continue;
+			}
+			
+			int idx = positions.get(key)[0]++;
+			newRows[idx] = sourceModel.get(i);
+			newViewToModel[idx] = i;
+			newModelToView[i] = idx;
+		}
+		
+		Component[] oldRows = rows;
+		groups = newGroups;
+		rows = newRows;
+		viewToModel = newViewToModel;
+		modelToView = newModelToView;
+		
+		fireChanges(oldRows, newRows);
+	}
+	
+	/** Reports the rows between the unchanged head and tail of the view. */
+	private void
+	fireChanges(Component[] oldRows, Component[] newRows) {
+		int oldCount = oldRows.length, newCount = newRows.length;
+		int n = Math.min(oldCount, newCount);
+		
+		int head = 0;
+		while(head < n && oldRows[head] == newRows[head]) head++;
+		
+		int tail = 0;
+		while(tail < n - head && oldRows[oldCount - 1 - tail] == newRows[newCount - 1 - tail]) tail++;
+		
+		int oldChanged = oldCount - head - tail;
+		int newChanged = newCount - head - tail;
+		int changed = Math.min(oldChanged, newChanged);
+		
+		if(oldChanged > newChanged) {
+			fireIntervalRemoved(this, head + changed, head + oldChanged - 1);
+		} else if(newChanged > oldChanged) {
+			fireIntervalAdded(this, head + changed, head + newChanged - 1);
+		}
+		
+		if(changed > 0) fireContentsChanged(this, head, head + changed - 1);
+	}
+	
+	/**
+	 * Gets the component at the specified index of the view.
+	 * @param index The requested index.
+	 * @return The component or the group header at the specified index.
+	 * @throws ArrayIndexOutOfBoundsException If the index is out of range.
+	 */
+	@Override
+	public Component
+	get(int index) {
+		if(index >= rows.length) throw new ArrayIndexOutOfBoundsException(index + " >= " + rows.length);
+		return rows[index];
+	}
+	
+	/**
+	 * Gets the component at the specified index of the view.
+	 * <blockquote>
+	 * <b>Note:</b> The preferred method to use is {@link #get}.
+	 * </blockquote>
+	 * @param index The requested index.
+	 * @return The component at the specified index.
+	 */
+	@Override
+	public Object
+	getElementAt(int index) { return get(index); }
+	
+	/**
+	 * Gets the view index of the specified component or group header.
+	 * @param o The component to look for.
+	 * @return The view index of the specified component or -1 if
+	 * the component is not in the view.
+	 */
+	@Override
+	public int
+	indexOf(Object o) {
+		int idx = convertRowIndexToView(sourceModel.indexOf(o));
+		if(idx != -1) return idx;
+		
+		for(Map.Entry<Object, int[]> e : groups.entrySet()) {
+			if(headers.get(e.getKey()) == o) return e.getValue()[1];
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Gets the number of rows in the view, including the group headers.
+	 * @return The number of rows in the view.
+	 */
+	@Override
+	public int
+	getSize() { return rows.length; }
+	
+	/**
+	 * Gets the number of rows in the view, including the group headers.
+	 * @return The number of rows in the view.
+	 */
+	@Override
+	public int
+	size() { return rows.length; }
+}
\ No newline at end of file
@@ -0,0 +1,174 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.function.Function;
+
+
+/**
+ * A <code>DefaultComponentListModel</code> whose components are identified by
+ * domain keys (for example, the IDs of the entities the rows represent).
+ * The model maintains a map from the keys to the positions of the components
+ * through the insertions, removals and moves, so the components can be looked up,
+ * replaced and removed by key in <code>O(log n)</code> time instead of scanning the list.
+ * <p>The key of a component is obtained with the key extractor specified on
+ * creation. The keys are compared with <code>equals</code> and are assumed to
+ * be unique within the model. The key of a component should not change while
+ * the component is in the model - to change it, replace the component.</p>
+ * @author Grigor Iliev
+ */
+public class KeyedComponentListModel<K, C extends Component> extends DefaultComponentListModel<C> {
+	private final Function<? super C, ? extends K> keyExtractor;
+	private final ComponentListIndex<K> keyIndex = new ComponentListIndex<K>(false);
+	
+	/**
+	 * Creates a new instance of <code>KeyedComponentListModel</code>.
+	 * @param keyExtractor Provides the key of a component.
+	 */
+	public
+	KeyedComponentListModel(Function<? super C, ? extends K> keyExtractor) {
+		this(keyExtractor, false);
+	}
+	
+	/**
+	 * Creates a new instance of <code>KeyedComponentListModel</code>.
+	 * @param keyExtractor Provides the key of a component.
+	 * @param edtConfined Specifies whether the model will be accessed
+	 * only from the event dispatching thread.
+	 * @see DefaultComponentListModel#DefaultComponentListModel(boolean)
+	 */
+	public
+	KeyedComponentListModel(Function<? super C, ? extends K> keyExtractor, boolean edtConfined) {
+		super(edtConfined);
+		if(keyExtractor == null) throw new IllegalArgumentException("keyExtractor should be non-null");
+		this.keyExtractor = keyExtractor;
+	}
+	
+	/** Gets the function which provides the keys of the components. */
+	public Function<? super C, ? extends K>
+	getKeyExtractor() { return keyExtractor; }
+	
+	/**
+	 * Gets the key of the specified component.
+	 * @param c A component.
+	 * @return The key of the specified component.
+	 */
+	public K
+	getKey(C c) { return keyExtractor.apply(c); }
+	
+	/**
+	 * Gets the position of the component with the specified key.
+	 * @param key The key to look for.
+	 * @return The index of the component with the specified key or -1 if not found.
+	 */
+	public int
+	indexOfKey(K key) { return keyIndex.indexOf(key); }
+	
+	/**
+	 * Determines whether the list contains a component with the specified key.
+	 */
+	public boolean
+	containsKey(K key) { return indexOfKey(key) != -1; }
+	
+	/**
+	 * Gets the component with the specified key.
+	 * @param key The key of the requested component.
+	 * @return The component with the specified key or <code>null</code> if not found.
+	 */
+	public C
+	getByKey(K key) {
+		int idx = indexOfKey(key);
+		return idx == -1 ? null : get(idx);
+	}
+	
+	/**
+	 * Replaces the component with the key of the specified component.
+	 * @param c The component to be stored in place of the component with the same key.
+	 * @return The replaced component or <code>null</code> if the list does not
+	 * contain a component with the key of the specified component,
+	 * in which case the list is not changed.
+	 */
+	public C
+	replaceByKey(C c) {
+		int idx = indexOfKey(getKey(c));
+		return idx == -1 ? null : set(idx, c);
+	}
+	
+	/**
+	 * Removes the component with the specified key.
+	 * @param key The key of the component to be removed.
+	 * @return The removed component or <code>null</code> if not found.
+	 */
+	public C
+	removeByKey(K key) {
+		int idx = indexOfKey(key);
+		return idx == -1 ? null : remove(idx);
+	}
+	
+	@Override
+	void
+	componentsAdded(int index, int count) {
+		super.componentsAdded(index, count);
+		keyIndex.inserted(index, count, i -> getKey(get(i)));
+	}
+	
+	@Override
+	void
+	componentsMoved(int first, int last) {
+		super.componentsMoved(first, last);
+		for(int i = first; i <= last; i++) keyIndex.replaced(i, getKey(get(i)));
+	}
+	
+	@Override
+	void
+	componentsSwapped(int index1, int index2) {
+		super.componentsSwapped(index1, index2);
+		keyIndex.replaced(index1, getKey(get(index1)));
+		keyIndex.replaced(index2, getKey(get(index2)));
+	}
+	
+	@Override
+	void
+	componentRemoved(C c, int index) {
+		super.componentRemoved(c, index);
+		keyIndex.removed(index);
+	}
+	
+	@Override
+	void
+	componentReplaced(C oldComponent, C c, int index) {
+		super.componentReplaced(oldComponent, c, index);
+		keyIndex.replaced(index, getKey(c));
+	}
+	
+	@Override
+	void
+	componentsCleared() {
+		super.componentsCleared();
+		keyIndex.clear();
+		keyIndex.inserted(0, size(), i -> getKey(get(i)));
+	}
+}
\ No newline at end of file
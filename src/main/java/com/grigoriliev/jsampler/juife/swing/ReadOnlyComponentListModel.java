@@ -0,0 +1,72 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import javax.swing.ListModel;
+
+import java.awt.Component;
+
+
+/**
+ * This interface defines the read-only part of the data model for <code>ComponentList</code>.
+ * It is implemented by the models whose rows are derived from another model and cannot
+ * be changed directly, like <code>DataComponentListModel</code>. The models whose
+ * rows can be changed implement {@link ComponentListModel}.
+ * @author Grigor Iliev
+ */
+public interface ReadOnlyComponentListModel<C extends Component> extends ListModel {
+	/**
+	 * Gets the component at the specified index.
+	 * @param index The requested index.
+	 * @return The component at the specified index.
+	 */
+	public C get(int index);
+	
+	/**
+	 * Gets the index of the specified component.
+	 * @param o The component to look for.
+	 * @return The index of the specified component or -1
+	 * if the list doesn't contain the component.
+	 */
+	public default int
+	indexOf(Object o) {
+		for(int i = 0; i < size(); i++) {
+			if(o == null ? get(i) == null : o.equals(get(i))) return i;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Gets the length of the list.
+	 * @return The length of the list.
+	 */
+	public int size();
+	
+	/**
+	 * Determines whether there are known upcoming changes to the 
+	 * component list, which should be considered as part of a single action.
+	 */
+	public boolean getComponentListIsAdjusting();
+}
@@ -0,0 +1,314 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing;
+
+import java.awt.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * A view of a <code>ComponentListModel</code>, which presents the components
+ * sorted with a comparator. The components which are equal according to the
+ * comparator are kept in the order of the source model. When the source model
+ * changes, only the affected rows are moved in a single batch, so that the listeners
+ * are notified about the range between the first and the last affected row instead
+ * of a change of the whole list.
+ * <p>The order of the rows is determined by the comparator,
+ * so the rows cannot be moved through this model.</p>
+ * @author Grigor Iliev
+ */
+public class SortedComponentListModel<C extends Component> extends AbstractComponentListViewModel<C> {
+	private Comparator<? super C> comparator;
+	
+	/** The source model rows added by the last change of the source model or -1. */
+	private int addedFirst = -1, addedLast = -1;
+	
+	/**
+	 * Creates a new instance of <code>SortedComponentListModel</code>,
+	 * which presents the components in the order of the specified model.
+	 * @param sourceModel The model whose components are presented.
+	 */
+	public
+	SortedComponentListModel(ComponentListModel<C> sourceModel) { this(sourceModel, null); }
+	
+	/**
+	 * Creates a new instance of <code>SortedComponentListModel</code>.
+	 * @param sourceModel The model whose components are presented.
+	 * @param comparator Determines the order of the components or <code>null</code>
+	 * if the components should be presented in the order of the source model.
+	 */
+	public
+	SortedComponentListModel(ComponentListModel<C> sourceModel, Comparator<? super C> comparator) {
+		super(sourceModel);
+		this.comparator = comparator;
+		
+		int[] rows = getSortedRows();
+		setRows(rows, rows.length);
+	}
+	
+	/**
+	 * Gets the comparator which determines the order of the components.
+	 * @return The comparator or <code>null</code> if the components
+	 * are presented in the order of the source model.
+	 */
+	public Comparator<? super C>
+	getComparator() { return comparator; }
+	
+	/**
+	 * Sets the comparator which determines the order of the components.
+	 * @param comparator The new comparator or <code>null</code> if the
+	 * components should be presented in the order of the source model.
+	 */
+	public void
+	setComparator(Comparator<? super C> comparator) {
+		this.comparator = comparator;
+		sort();
+	}
+	
+	/**
+	 * Sorts the rows again. This method should be invoked when the properties
+	 * the comparator depends on have changed. The listeners are notified
+	 * that the rows between the first and the last moved row have changed.
+	 */
+	public void
+	sort() {
+		int[] rows = getSortedRows();
+		int n = rows.length;
+		
+		int first = 0;
+		while(first < n && rows[first] == convertRowIndexToModel(first)) first++;
+		if(first == n) return;
+		
+		int last = n - 1;
+		while(rows[last] == convertRowIndexToModel(last)) last--;
+		
+		setRows(rows, n);
+		fireContentsChanged(this, first, last);
+	}
+	
+	@Override
+	protected void
+	sourceIntervalAdded(int first, int last) {
+		shiftModelIndices(first, last - first + 1);
+		
+		beginBatch();
+		try { insertSourceRows(first, last); }
+		finally { endBatch(); }
+		
+		addedFirst = first;
+		addedLast = last;
+	}
+	
+	@Override
+	protected void
+	sourceIntervalRemoved(int first, int last) {
+		addedFirst = addedLast = -1;
+		
+		int[] rows = new int[last - first + 1];
+		int count = 0;
+		
+		for(int i = 0; i < getSize(); i++) {
+			int m = convertRowIndexToModel(i);
+			if(m >= first && m <= last) rows[count++] = i;
+		}
+		
+		shiftModelIndices(last + 1, first - last - 1);
+		removeViewRows(rows, count);
+	}
+	
+	@Override
+	protected void
+	sourceContentsChanged(int first, int last) {
+		// A batch of the source model reports the added rows before the changed
+		// rows preceding them, so the added rows are inserted using the old order
+		// of the changed rows and may be misplaced. They are moved too.
+		if(addedFirst == last + 1) last = addedLast;
+		addedFirst = addedLast = -1;
+		
+		int[] rows = new int[last - first + 1];
+		for(int i = first; i <= last; i++) rows[i - first] = convertRowIndexToView(i);
+		Arrays.sort(rows);
+		
+		boolean sorted = true;
+		
+		for(int i = 0; i < rows.length && sorted; i++) {
+			int r = rows[i];
+			if(r > 0 && compareRows(convertRowIndexToModel(r - 1), convertRowIndexToModel(r)) > 0) {
+				sorted = false;
+			}
+			
+			if(r < getSize() - 1 && compareRows(convertRowIndexToModel(r), convertRowIndexToModel(r + 1)) > 0) {
+				sorted = false;
+			}
+		}
+		
+		if(sorted) {
+			// the rows are changed in place
+			for(int i = 0, j; i < rows.length; i = j) {
+				for(j = i + 1; j < rows.length && rows[j] == rows[j - 1] + 1; j++);
+				fireContentsChanged(this, rows[i], rows[j - 1]);
+			}
+			
+			return;
+		}
+		
+		// the rows are moved in a single batch, because the
+		// changed rows are out of order until all are moved
+		beginBatch();
+		
+		try {
+			removeViewRows(rows, rows.length);
+			insertSourceRows(first, last);
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Inserts the rows of the specified source model components. The components are
+	 * sorted first, so each of them is looked up only after the previously inserted one.
+	 */
+	private void
+	insertSourceRows(int first, int last) {
+		Integer[] modelRows = new Integer[last - first + 1];
+		for(int i = first; i <= last; i++) modelRows[i - first] = i;
+		if(comparator != null) Arrays.sort(modelRows, this::compareRows);
+		
+		int[] row = new int[1];
+		int idx = 0;
+		
+		for(int i : modelRows) {
+			idx = getInsertionIndex(i, idx);
+			row[0] = i;
+			insertRows(idx, row, 1);
+			fireIntervalAdded(this, idx, idx);
+			idx++;
+		}
+	}
+	
+	@Override
+	protected void
+	reset() {
+		addedFirst = addedLast = -1;
+		
+		int oldSize = getSize();
+		int[] rows = getSortedRows();
+		setRows(rows, rows.length);
+		
+		if(rows.length > oldSize) fireIntervalAdded(this, oldSize, rows.length - 1);
+		else if(rows.length < oldSize) fireIntervalRemoved(this, rows.length, oldSize - 1);
+		
+		int n = Math.min(oldSize, rows.length);
+		if(n > 0) fireContentsChanged(this, 0, n - 1);
+	}
+	
+	/**
+	 * Removes the specified rows, notifying the listeners
+	 * about each contiguous run of removed rows.
+	 * @param rows The view indices of the rows to remove in increasing order.
+	 */
+	private void
+	removeViewRows(int[] rows, int count) {
+		for(int j = count - 1, i; j >= 0; j = i - 1) {
+			for(i = j; i > 0 && rows[i - 1] == rows[i] - 1; i--);
+			
+			removeRows(rows[i], rows[j]);
+			fireIntervalRemoved(this, rows[i], rows[j]);
+		}
+	}
+	
+	/**
+	 * Compares the components at the specified source model indices.
+	 * The components which are equal according to the
+	 * comparator are ordered by their source model indices.
+	 */
+	private int
+	compareRows(int modelIndex1, int modelIndex2) {
+		if(comparator != null) {
+			ComponentListModel<C> m = getSourceModel();
+			int c = comparator.compare(m.get(modelIndex1), m.get(modelIndex2));
+			if(c != 0) return c;
+		}
+		
+		return Integer.compare(modelIndex1, modelIndex2);
+	}
+	
+	/**
+	 * Gets the view index at which the specified source model
+	 * component should be inserted, starting from the specified view index.
+	 */
+	private int
+	getInsertionIndex(int modelIndex, int from) {
+		int lo = from, hi = getSize();
+		
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(compareRows(convertRowIndexToModel(mid), modelIndex) < 0) lo = mid + 1;
+			else hi = mid;
+		}
+		
+		return lo;
+	}
+	
+	private int[]
+	getSortedRows() {
+		int n = getSourceModel().getSize();
+		Integer[] rows = new Integer[n];
+		for(int i = 0; i < n; i++) rows[i] = i;
+		
+		if(comparator != null) Arrays.sort(rows, this::compareRows);
+		
+		int[] res = new int[n];
+		for(int i = 0; i < n; i++) res[i] = rows[i];
+		
+		return res;
+	}
+	
+	/**
+	 * The order of the rows is determined by the comparator,
+	 * so the rows cannot be moved through this model.
+	 * @return <code>false</code>
+	 */
+	@Override
+	public boolean
+	isMoveSupported() { return false; }
+	
+	@Override
+	public void
+	moveUp(C c) { throw unmovable(); }
+	
+	@Override
+	public void
+	moveDown(C c) { throw unmovable(); }
+	
+	@Override
+	public void
+	move(int from, int to) { throw unmovable(); }
+	
+	private UnsupportedOperationException
+	unmovable() {
+		return new UnsupportedOperationException("The order of the rows is determined by the comparator");
+	}
+}
\ No newline at end of file
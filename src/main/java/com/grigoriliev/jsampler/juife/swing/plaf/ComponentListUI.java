@@ -40,6 +40,22 @@ public abstract class ComponentListUI extends PanelUI {
 	/** Updates the component list UI. */
 	public abstract void updateList();
 	
+	/**
+	 * Applies the data model changes which are scheduled to be applied
+	 * later, so that the list is up to date when this method returns.
+	 * The default implementation does nothing.
+	 */
+	public void
+	flushPendingUpdates() { }
+	
+	/**
+	 * Invoked when the texts of the components used by the type-ahead search have
+	 * changed, other than along with a data model event or a change of the type-ahead
+	 * extractor of the list. The default implementation does nothing.
+	 */
+	public void
+	typeAheadTextsChanged() { }
+	
 	/**
 	 * Process a selection event.
 	 * @param c The newly selected component.
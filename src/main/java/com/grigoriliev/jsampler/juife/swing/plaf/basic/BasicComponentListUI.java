@@ -22,36 +22,63 @@
 
 package com.grigoriliev.jsampler.juife.swing.plaf.basic;
 
+import java.awt.AWTEvent;
+import java.awt.Color;
 import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.LayoutManager2;
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import java.awt.dnd.DragSource;
 
 import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
-import java.awt.event.MouseListener;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ActionMap;
-import javax.swing.Box;
-import javax.swing.BoxLayout;
 import javax.swing.InputMap;
 import javax.swing.JComponent;
+import javax.swing.JLayer;
 import javax.swing.JPanel;
+import javax.swing.JViewport;
 import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.UIManager;
 
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
 import javax.swing.plaf.ComponentUI;
+import javax.swing.plaf.LayerUI;
 
+import com.grigoriliev.jsampler.juife.swing.CollapsibleComponentListModel;
 import com.grigoriliev.jsampler.juife.swing.ComponentList;
 import com.grigoriliev.jsampler.juife.swing.ComponentListModel;
+import com.grigoriliev.jsampler.juife.swing.ComponentListSelectionModel;
+import com.grigoriliev.jsampler.juife.swing.ReadOnlyComponentListModel;
 import com.grigoriliev.jsampler.juife.swing.plaf.ComponentListUI;
 
 
@@ -64,8 +91,89 @@ public class BasicComponentListUI extends ComponentListUI {
 	
 	private ComponentList componentList = null;
 	
-	private JPanel listPane;
+	private ListPane listPane;
+	
+	/** Wraps <code>listPane</code> to dispatch the mouse events of all rows in one place. */
+	private JLayer<JPanel> listLayer;
+	
+	/**
+	 * Determines whether the content of <code>listPane</code> may differ
+	 * from the data model, in which case a full rebuild is needed.
+	 */
+	private boolean listPaneOutOfSync = true;
+	
+	/** Determines whether there are data model changes not applied to <code>listPane</code> yet. */
+	private boolean updatePending = false;
+	
+	/** The size of the data model when the pending changes were last applied. */
+	private int pendingStartSize = 0;
+	
+	/** The number of leading and trailing rows not affected by the pending changes. */
+	private int cleanHead = 0, cleanTail = 0;
+	
+	/** The index of the row to be made visible after the pending layout or -1. */
+	private int pendingScrollIndex = -1;
+	
+	private boolean scrollScheduled = false;
+	
+	/**
+	 * The row whose position in the viewport is kept when rows are inserted
+	 * or removed before it, or -1 if there is no pending scroll anchoring.
+	 */
+	private int anchorRow = -1;
+	
+	/** The distance from the top of <code>anchorRow</code> to the top of the visible area. */
+	private int anchorOffset = 0;
+	
+	/** The component at <code>anchorRow</code> when the anchor was recorded. */
+	private Component anchorComponent = null;
+	
+	/** Determines whether the viewport is being scrolled by the layout of <code>listPane</code>. */
+	private boolean anchoring = false;
+	
+	/** The heights and offsets of the rows when the list is virtualized. */
+	private final RowMetrics rowMetrics = new RowMetrics();
+	
+	/**
+	 * The rows measured during the current layout pass. A measured row stays invalid
+	 * until <code>listPane</code> is validated at the end of the pass, so the rows
+	 * measured for the preferred size of <code>listPane</code> are not measured
+	 * again by its layout.
+	 */
+	private final BitSet layoutPassRows = new BitSet();
+	
+	/** The size of <code>listPane</code> computed during the current layout pass or <code>null</code>. */
+	private Dimension layoutPassSize = null;
+	
+	/** The event during which the current layout pass has begun. */
+	private AWTEvent layoutPassEvent = null;
+	
+	/** The viewport whose visible area determines which rows are added to <code>listPane</code>. */
+	private JViewport viewport = null;
+	
+	/** The interval of rows currently added to <code>listPane</code> when the list is virtualized. */
+	private int firstRealizedRow = 0, lastRealizedRow = -1;
+	
+	/**
+	 * The selection state of the rows as last reported to the components,
+	 * used to notify only the components whose selection state has changed.
+	 */
+	private final BitSet selectionSnapshot = new BitSet();
+	
+	/** The index of the texts used by the type-ahead search or <code>null</code> if disabled. */
+	private TypeAheadIndex typeAheadIndex = null;
+	
+	/**
+	 * The row to be selected by the pending keyboard navigation or -1. The navigation
+	 * actions invoked before the selection is applied are coalesced, so that holding
+	 * a navigation key changes the selection at most once per event dispatching cycle.
+	 */
+	private int pendingNavigationRow = -1;
+	
+	/** Determines whether the pending keyboard navigation extends the selection. */
+	private boolean pendingNavigationExtend = false;
 	
+	private boolean navigationScheduled = false;
 	
 	private
 	BasicComponentListUI() { }
@@ -97,14 +205,18 @@ public class BasicComponentListUI extends ComponentListUI {
 		
 		installDefaults();
 		installListeners();
+		resetSelectionSnapshot();
 	}
 	
 	/** Installs the UI defaults. */
 	protected void
 	installDefaults() {
-		listPane = new JPanel();
-		listPane.setLayout(new BoxLayout(listPane, BoxLayout.Y_AXIS));
-		componentList.add(listPane);
+		listPane = new ListPane();
+		listPane.setLayout(new ListLayout());
+		listLayer = new JLayer<JPanel>(listPane, new ListLayerUI());
+		componentList.add(listLayer);
+		updateSnapshotCache();
+		updateTypeAheadIndex();
 		
 		loadActionMap();
 		loadInputMap();
@@ -115,8 +227,6 @@ public class BasicComponentListUI extends ComponentListUI {
 	installListeners() {
 		componentList.addPropertyChangeListener(getHandler());
 		componentList.addListSelectionListener(getHandler());
-		
-		listPane.addMouseListener(getHandler());
 	}
 	
 	/**
@@ -136,33 +246,213 @@ public class BasicComponentListUI extends ComponentListUI {
 	/** Uninstalls the UI defaults. */
 	protected void
 	uninstallDefaults() {
-		componentList.remove(listPane);
+		listPane.setSnapshotCache(null);
+		typeAheadIndex = null;
+		componentList.remove(listLayer);
+		listLayer.setUI(null);
 		componentList = null;
 		listPane = null;
+		listLayer = null;
 	}
 	
 	/** Uninstalls the event listeners for the UI. */
 	protected void
 	uninstallListeners() {
 		componentList.removePropertyChangeListener(getHandler());
-		componentList.getModel().removeListDataListener(getHandler());
+		componentList.getRowModel().removeListDataListener(getHandler());
 		componentList.removeListSelectionListener(getHandler());
 		
-		listPane.removeMouseListener(getHandler());
+		if(viewport != null) viewport.removeChangeListener(getHandler());
+		viewport = null;
 	}
 	
 	/**
 	 * Scrolls the viewport to make the specified component visible.
+	 * The scrolling is deferred until the pending layout of the list is complete,
+	 * so that the bounds of the component are up to date. If this method is invoked
+	 * several times before that, only the last request takes effect.
 	 * @param index The index of the component to make visible.
 	 */
 	@Override
 	public void
 	ensureIndexIsVisible(int index) {
-		if(index < 0 || index >= componentList.getModel().getSize()) return;
-		Component c = componentList.getModel().get(index);
-		if(c == null) return;
+		flushPendingUpdates();
+		if(index < 0 || index >= componentList.getRowModel().getSize()) return;
+		
+		pendingScrollIndex = index;
+		if(scrollScheduled) return;
+		scrollScheduled = true;
+		
+		SwingUtilities.invokeLater(new Runnable() {
+			public void
+			run() {
+				scrollScheduled = false;
+				if(listPane == null) return;
+				
+				// resolved by the pending layout of listPane
+				if(listPane.isShowing() && !listPane.isValid()) return;
+				
+				resolvePendingScroll();
+			}
+		});
+	}
+	
+	/** Scrolls the viewport to make the row requested by <code>ensureIndexIsVisible</code> visible. */
+	private void
+	resolvePendingScroll() {
+		int index = pendingScrollIndex;
+		if(index == -1) return;
+		pendingScrollIndex = -1;
+		
+		if(listPaneOutOfSync || index >= rowMetrics.getSize()) return;
+		
+		boolean measured = rowMetrics.isMeasured(index);
+		Rectangle r = getRowBounds(index);
+		listPane.scrollRectToVisible(r);
+		
+		// the estimated offset of a virtualized row is corrected when the row is realized
+		if(measured || !rowMetrics.isMeasured(index)) return;
+		
+		Rectangle r2 = getRowBounds(index);
+		if(!r2.equals(r)) listPane.scrollRectToVisible(r2);
+	}
+	
+	/**
+	 * Records the first visible row as scroll anchor, if not recorded yet, and updates its
+	 * index according to the replacement of the specified number of rows at the specified
+	 * position. Neither <code>listPane</code> nor the row metrics should be updated yet.
+	 * The anchor is not recorded when the viewport is scrolled to the top of the list.
+	 */
+	private void
+	updateScrollAnchor(int index, int oldCount, int newCount) {
+		if(!componentList.getScrollAnchoring()) return;
+		ReadOnlyComponentListModel<?> m = componentList.getRowModel();
+		
+		if(anchorRow == -1) {
+			int top = getVisibleTop();
+			if(top <= 0 || rowMetrics.getSize() == 0) return;
+			
+			anchorRow = rowMetrics.getRowAt(top);
+			anchorOffset = top - rowMetrics.getOffset(anchorRow);
+			
+			int i = anchorRow - (componentList.isVirtualized() ? firstRealizedRow : 0);
+			anchorComponent = i >= 0 && i < getRowCount() ? listPane.getComponent(i) : null;
+		}
+		
+		if(anchorRow < index) return;
+		
+		if(anchorRow >= index + oldCount) {
+			anchorRow += newCount - oldCount;
+			return;
+		}
+		
+		// the anchor row is among the replaced rows
+		int i = anchorComponent == null ? -1 : m.indexOf(anchorComponent);
+		if(i >= index && i < index + newCount) {
+			anchorRow = i;
+		} else {
+			anchorRow = index + newCount;
+			anchorOffset = 0;
+			anchorComponent = null;
+		}
+		
+		if(anchorRow >= m.getSize()) anchorRow = -1;
+	}
+	
+	/**
+	 * Scrolls the viewport so that the anchor row is at the
+	 * same position as when the anchor was recorded.
+	 */
+	private void
+	applyScrollAnchor() {
+		if(anchorRow == -1) return;
+		
+		int top = getVisibleTop();
+		if(top == -1 || anchorRow >= rowMetrics.getSize()) {
+			anchorRow = -1;
+			return;
+		}
+		
+		int dy = rowMetrics.getOffset(anchorRow) + anchorOffset - top;
+		if(dy == 0) return;
+		
+		Point p = viewport.getViewPosition();
+		int max = Math.max(0, viewport.getViewSize().height - viewport.getExtentSize().height);
+		int y = Math.max(0, Math.min(max, p.y + dy));
+		if(y == p.y) return;
+		
+		anchoring = true;
+		try { viewport.setViewPosition(new Point(p.x, y)); }
+		finally { anchoring = false; }
+	}
+	
+	/**
+	 * Gets the offset of the top of the visible area from the top of the first row.
+	 * @return The offset of the visible area or -1 if the list is not in a viewport.
+	 */
+	private int
+	getVisibleTop() {
+		if(viewport == null || viewport.getView() == null) return -1;
+		
+		Rectangle r = SwingUtilities.convertRectangle(viewport.getView(), viewport.getViewRect(), listPane);
+		return Math.max(0, r.y - listPane.getInsets().top);
+	}
+	
+	/** Enables or disables the row snapshot cache according to the list property. */
+	private void
+	updateSnapshotCache() {
+		boolean b = componentList.getRowSnapshotCaching();
+		if(b == (listPane.snapshotCache != null)) return;
+		
+		listPane.setSnapshotCache(b ? RowSnapshotCache.create(listPane) : null);
+	}
+	
+	@Override
+	public void
+	typeAheadTextsChanged() { updateTypeAheadIndex(); }
+	
+	/** Creates or removes the type-ahead index according to the list properties. */
+	private void
+	updateTypeAheadIndex() {
+		if(!componentList.isTypeAheadEnabled()) typeAheadIndex = null;
+		else if(typeAheadIndex != null) typeAheadIndex.invalidate();
+		else typeAheadIndex = new TypeAheadIndex(componentList::getTypeAheadText);
+	}
+	
+	/**
+	 * Replaces the specified number of rows in the type-ahead index
+	 * with the specified number of the corresponding data model rows.
+	 */
+	private void
+	updateTypeAheadIndex(int index, int oldCount, int newCount) {
+		if(typeAheadIndex == null) return;
+		
+		if(index < 0) typeAheadIndex.invalidate();
+		else typeAheadIndex.update(componentList.getRowModel().getSize(), index, oldCount, newCount);
+	}
+	
+	/**
+	 * Selects the next row whose text starts with the specified prefix.
+	 * @param current The row the search starts from or -1.
+	 * @param skipCurrent Specifies whether the current row should be
+	 * skipped if its text also starts with the prefix.
+	 */
+	private void
+	selectNextMatch(String prefix, int current, boolean skipCurrent) {
+		int size = componentList.getRowModel().getSize();
+		int idx = typeAheadIndex.find(size, prefix, current, skipCurrent);
+		if(idx == -1) return;
 		
-		listPane.scrollRectToVisible(c.getBounds());
+		componentList.getSelectionModel().setSelectionInterval(idx, idx);
+		ensureIndexIsVisible(idx);
+	}
+	
+	private Rectangle
+	getRowBounds(int index) {
+		return new Rectangle (
+			0, listPane.getInsets().top + rowMetrics.getOffset(index),
+			listPane.getWidth(), rowMetrics.getHeight(index)
+		);
 	}
 	
 	private void
@@ -181,6 +471,18 @@ public class BasicComponentListUI extends ComponentListUI {
 			Actions.SELECT_NEXT_COMPONENT_EXTEND,
 			new Actions(Actions.SELECT_NEXT_COMPONENT_EXTEND)
 		);
+		
+		map.put(Actions.COLLAPSE_GROUP, new Actions(Actions.COLLAPSE_GROUP));
+		map.put(Actions.EXPAND_GROUP, new Actions(Actions.EXPAND_GROUP));
+		
+		String[] names = {
+			Actions.SELECT_PAGE_UP, Actions.SELECT_PAGE_DOWN,
+			Actions.SELECT_PAGE_UP_EXTEND, Actions.SELECT_PAGE_DOWN_EXTEND,
+			Actions.SELECT_FIRST_COMPONENT, Actions.SELECT_LAST_COMPONENT,
+			Actions.SELECT_FIRST_COMPONENT_EXTEND, Actions.SELECT_LAST_COMPONENT_EXTEND
+		};
+		
+		for(String name : names) map.put(name, new Actions(name));
 	}
 	
 	private void
@@ -206,6 +508,34 @@ public class BasicComponentListUI extends ComponentListUI {
 			KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, KeyEvent.SHIFT_MASK),
 			Actions.SELECT_NEXT_COMPONENT_EXTEND
 		);
+		
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0), Actions.COLLAPSE_GROUP);
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0), Actions.EXPAND_GROUP);
+		
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), Actions.SELECT_PAGE_UP);
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), Actions.SELECT_PAGE_DOWN);
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, 0), Actions.SELECT_FIRST_COMPONENT);
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, 0), Actions.SELECT_LAST_COMPONENT);
+		
+		map.put (
+			KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, InputEvent.SHIFT_DOWN_MASK),
+			Actions.SELECT_PAGE_UP_EXTEND
+		);
+		
+		map.put (
+			KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, InputEvent.SHIFT_DOWN_MASK),
+			Actions.SELECT_PAGE_DOWN_EXTEND
+		);
+		
+		map.put (
+			KeyStroke.getKeyStroke(KeyEvent.VK_HOME, InputEvent.SHIFT_DOWN_MASK),
+			Actions.SELECT_FIRST_COMPONENT_EXTEND
+		);
+		
+		map.put (
+			KeyStroke.getKeyStroke(KeyEvent.VK_END, InputEvent.SHIFT_DOWN_MASK),
+			Actions.SELECT_LAST_COMPONENT_EXTEND
+		);
 	}
 	
 	private class Actions extends AbstractAction {
@@ -215,26 +545,66 @@ public class BasicComponentListUI extends ComponentListUI {
 			"ExtendSelectionToPreviousComponent";
 		private final static String SELECT_NEXT_COMPONENT_EXTEND =
 			"ExtendSelectionToNextComponent";
+		private final static String COLLAPSE_GROUP = "CollapseGroup";
+		private final static String EXPAND_GROUP = "ExpandGroup";
+		private final static String SELECT_PAGE_UP = "SelectComponentPageUp";
+		private final static String SELECT_PAGE_DOWN = "SelectComponentPageDown";
+		private final static String SELECT_PAGE_UP_EXTEND = "ExtendSelectionPageUp";
+		private final static String SELECT_PAGE_DOWN_EXTEND = "ExtendSelectionPageDown";
+		private final static String SELECT_FIRST_COMPONENT = "SelectFirstComponent";
+		private final static String SELECT_LAST_COMPONENT = "SelectLastComponent";
+		private final static String SELECT_FIRST_COMPONENT_EXTEND =
+			"ExtendSelectionToFirstComponent";
+		private final static String SELECT_LAST_COMPONENT_EXTEND =
+			"ExtendSelectionToLastComponent";
 		
 		Actions(String name) { super(name); }
 		
+		/** The group actions are disabled, so that the keys are not consumed, unless the model is collapsible. */
+		@Override
+		public boolean
+		isEnabled() {
+			Object name = getValue(Action.NAME);
+			if(name != COLLAPSE_GROUP && name != EXPAND_GROUP) return super.isEnabled();
+			
+			return componentList != null && componentList.getRowModel() instanceof CollapsibleComponentListModel;
+		}
+		
 		@Override
 		public void
 		actionPerformed(ActionEvent e) {
-			ComponentListModel dm = componentList.getModel();
+			ReadOnlyComponentListModel<?> dm = componentList.getRowModel();
 			ListSelectionModel sm = componentList.getSelectionModel();
-			int ai = sm.getAnchorSelectionIndex();
-			
 			Object name = getValue(Action.NAME);
 			
+			// the actions which are not coalesced should see the pending selection
+			if( name == SELECT_PREV_COMPONENT_EXTEND || name == SELECT_NEXT_COMPONENT_EXTEND ||
+			    name == COLLAPSE_GROUP || name == EXPAND_GROUP ) applyPendingNavigation();
+			
+			int ai = sm.getAnchorSelectionIndex();
+			
 			if(name == SELECT_PREV_COMPONENT) {
 				if(sm.isSelectionEmpty()) return;
+				if(pendingNavigationRow != -1) ai = pendingNavigationRow;
 				if(ai < 1) return;
-				sm.setSelectionInterval(ai - 1, ai - 1);
+				navigate(ai - 1, false);
 			} else if(name == SELECT_NEXT_COMPONENT) {
 				//if(sm.isSelectionEmpty()) return;
+				if(pendingNavigationRow != -1) ai = pendingNavigationRow;
 				if(ai >= dm.getSize() - 1) return;
-				sm.setSelectionInterval(ai + 1, ai + 1);
+				navigate(ai + 1, false);
+			} else if(name == SELECT_PAGE_UP || name == SELECT_PAGE_UP_EXTEND) {
+				if(dm.getSize() == 0) return;
+				navigate(getPageRow(getNavigationRow(), false), name == SELECT_PAGE_UP_EXTEND);
+			} else if(name == SELECT_PAGE_DOWN || name == SELECT_PAGE_DOWN_EXTEND) {
+				if(dm.getSize() == 0) return;
+				navigate(getPageRow(getNavigationRow(), true), name == SELECT_PAGE_DOWN_EXTEND);
+			} else if(name == SELECT_FIRST_COMPONENT || name == SELECT_FIRST_COMPONENT_EXTEND) {
+				if(dm.getSize() == 0) return;
+				navigate(0, name == SELECT_FIRST_COMPONENT_EXTEND);
+			} else if(name == SELECT_LAST_COMPONENT || name == SELECT_LAST_COMPONENT_EXTEND) {
+				if(dm.getSize() == 0) return;
+				navigate(dm.getSize() - 1, name == SELECT_LAST_COMPONENT_EXTEND);
 			} else if(name == SELECT_PREV_COMPONENT_EXTEND) {
 				if(sm.isSelectionEmpty()) return;
 				if(ai < 1) return;
@@ -251,25 +621,138 @@ public class BasicComponentListUI extends ComponentListUI {
 					sm.removeSelectionInterval(ai, ai);
 					sm.setAnchorSelectionIndex(ai + 1);
 				} else sm.addSelectionInterval(ai + 1, ai + 1);
+			} else if(name == COLLAPSE_GROUP || name == EXPAND_GROUP) {
+				if(!(dm instanceof CollapsibleComponentListModel)) return;
+				if(ai < 0 || ai >= dm.getSize()) return;
+				
+				CollapsibleComponentListModel<?> gm = (CollapsibleComponentListModel<?>)dm;
+				Object key = gm.getGroupKey(ai);
+				gm.setCollapsed(key, name == COLLAPSE_GROUP);
+				
+				int idx = gm.getHeaderIndex(key);
+				if(name == COLLAPSE_GROUP && idx != -1) sm.setSelectionInterval(idx, idx);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the row the keyboard navigation starts from, which is the row to be
+	 * selected by the pending navigation or the lead of the selection.
+	 */
+	private int
+	getNavigationRow() {
+		if(pendingNavigationRow != -1) return pendingNavigationRow;
+		
+		ListSelectionModel sm = componentList.getSelectionModel();
+		int i = sm.getLeadSelectionIndex();
+		if(i == -1) i = sm.getAnchorSelectionIndex();
+		
+		return Math.max(-1, Math.min(i, componentList.getRowModel().getSize() - 1));
+	}
+	
+	/**
+	 * Gets the row which is one page (the height of the visible area
+	 * of the list) above or below the specified row. The row is looked
+	 * up in the cached row offsets in <code>O(log n)</code> time.
+	 */
+	private int
+	getPageRow(int row, boolean down) {
+		flushPendingUpdates();
+		
+		int size = componentList.getRowModel().getSize();
+		int page = listPane.getVisibleRect().height;
+		if(page <= 0) page = listPane.getHeight();
+		
+		row = Math.min(row, size - 1);
+		if(row == -1) return down ? 0 : size - 1;
+		
+		int idx;
+		if(listPaneOutOfSync || rowMetrics.getSize() != size) {
+			int n = Math.max(1, page / rowMetrics.getEstimatedRowHeight());
+			idx = down ? row + n : row - n;
+		} else {
+			int y = rowMetrics.getOffset(row) + (down ? page : -page);
+			idx = y < 0 ? 0 : rowMetrics.getRowAt(y);
+		}
+		
+		// move at least one row when the rows are higher than the visible area
+		if(idx == row) idx = down ? row + 1 : row - 1;
+		
+		return Math.max(0, Math.min(size - 1, idx));
+	}
+	
+	/**
+	 * Selects the specified row, or extends the selection from the anchor to that row,
+	 * and makes the row visible. The selection is applied later, along with the other
+	 * navigation requests in the current event dispatching cycle, so that the key
+	 * repeat events result in a single change of the selection.
+	 */
+	private void
+	navigate(int row, boolean extend) {
+		if(pendingNavigationRow != -1 && pendingNavigationExtend != extend) {
+			applyPendingNavigation();
+		}
+		
+		pendingNavigationRow = row;
+		pendingNavigationExtend = extend;
+		
+		if(navigationScheduled) return;
+		navigationScheduled = true;
+		
+		SwingUtilities.invokeLater(new Runnable() {
+			public void
+			run() {
+				navigationScheduled = false;
+				if(componentList != null) applyPendingNavigation();
 			}
+		});
+	}
+	
+	/** Applies the selection requested by the pending keyboard navigation. */
+	private void
+	applyPendingNavigation() {
+		int row = pendingNavigationRow;
+		if(row == -1) return;
+		pendingNavigationRow = -1;
+		
+		if(row >= componentList.getRowModel().getSize()) return;
+		
+		ListSelectionModel sm = componentList.getSelectionModel();
+		int ai = sm.getAnchorSelectionIndex();
+		
+		if(!pendingNavigationExtend || ai == -1 || sm.getSelectionMode() == ListSelectionModel.SINGLE_SELECTION) {
+			sm.setSelectionInterval(row, row);
+		} else {
+			sm.setSelectionInterval(ai, row);
 		}
+		
+		ensureIndexIsVisible(row);
 	}
 	
-	/** Updates the component list UI. */
+	/**
+	 * Updates the component list UI by rebuilding the list from scratch.
+	 * Note that changes of the data model are normally applied incrementally
+	 * and this method should be invoked only when the list is out of sync
+	 * with the data model (for example when the auto update is disabled).
+	 */
 	@Override
 	public void
 	updateList() {
-		for(Component c : listPane.getComponents()) c.removeMouseListener(getHandler());
-		
+		updatePending = false;
+		endLayoutPass();
+		anchorRow = -1;
+		anchorComponent = null;
 		listPane.removeAll();
+		rowMetrics.reset(componentList.getRowModel().getSize());
 		
-		for(int i = 0; i < componentList.getModel().getSize(); i++) {
-			Component c = componentList.getModel().get(i);
-			listPane.add(c, i);
-			c.addMouseListener(getHandler());
+		if(componentList.isVirtualized()) {
+			firstRealizedRow = 0;
+			lastRealizedRow = -1;
+		} else for(int i = 0; i < componentList.getRowModel().getSize(); i++) {
+			listPane.add(componentList.getRowModel().get(i), i);
 		}
 		
-		listPane.add(Box.createGlue());
+		listPaneOutOfSync = false;
 		
 		if(!listPane.hasFocus() && listPane.isRequestFocusEnabled())
 			listPane.requestFocus();
@@ -278,128 +761,1199 @@ public class BasicComponentListUI extends ComponentListUI {
 		listPane.repaint();
 	}
 	
-	private final Handler handler = new Handler();
+	/**
+	 * Ends the current layout pass. The rows are checked for changes and the size
+	 * of <code>listPane</code> is computed again during the next layout pass.
+	 */
+	private void
+	endLayoutPass() {
+		layoutPassRows.clear();
+		layoutPassSize = null;
+		layoutPassEvent = null;
+	}
 	
-	private Handler
-	getHandler() { return handler; }
+	/**
+	 * Begins a new layout pass unless the current layout pass has begun during
+	 * the current event. A layout pass which is not completed by the validation
+	 * of <code>listPane</code> during the same event is discarded.
+	 */
+	private void
+	checkLayoutPass() {
+		AWTEvent e = EventQueue.getCurrentEvent();
+		if(e != null && e == layoutPassEvent) return;
+		
+		endLayoutPass();
+		layoutPassEvent = e;
+	}
 	
-	private class Handler implements ListDataListener,
-			ListSelectionListener, PropertyChangeListener, MouseListener {
+	/** Gets the number of list rows currently added to <code>listPane</code>. */
+	private int
+	getRowCount() { return listPane.getComponentCount(); }
+	
+	/**
+	 * Records the specified data model change. The changes are not applied
+	 * immediately - they are merged into a single dirty range, which is applied
+	 * to <code>listPane</code> once per event dispatching cycle.
+	 * @see #flushPendingUpdates
+	 */
+	private void
+	applyListDataEvent(ListDataEvent e) {
+		if(!componentList.getAutoUpdate()) {
+			listPaneOutOfSync = true;
+			return;
+		}
 		
-		// Implementation of ListDataListener interface
-		@Override
-		public void
-		intervalAdded(ListDataEvent e) {
-			ListSelectionModel m = componentList.getSelectionModel();
-			if(m == null) return;
-			
-			int min = Math.min(e.getIndex0(), e.getIndex1());
-			int max = Math.max(e.getIndex0(), e.getIndex1());
-			m.insertIndexInterval(min, max - min + 1, true);
+		int first = Math.min(e.getIndex0(), e.getIndex1());
+		int last = Math.max(e.getIndex0(), e.getIndex1());
+		
+		if(!updatePending) {
+			updatePending = true;
+			pendingStartSize = rowMetrics.getSize();
+			cleanHead = cleanTail = Integer.MAX_VALUE;
 			
-			boolean adjusting = componentList.getModel().getComponentListIsAdjusting();
-			if(componentList.getAutoUpdate() && !adjusting) updateList();
+			SwingUtilities.invokeLater(new Runnable() {
+				public void
+				run() { if(componentList != null) flushPendingUpdates(); }
+			});
 		}
 		
-		@Override
-		public void
-		intervalRemoved(ListDataEvent e) {
-			ListSelectionModel m = componentList.getSelectionModel();
-			if(m != null) m.removeIndexInterval(e.getIndex0(), e.getIndex1());
-			
-			boolean adjusting = componentList.getModel().getComponentListIsAdjusting();
-			if(componentList.getAutoUpdate() && !adjusting) updateList();
+		// the changes made while the model is adjusting are applied by rebuilding the list
+		// when the pending updates are flushed, even if no event follows the adjusting
+		if(listPaneOutOfSync || first < 0 || componentList.getRowModel().getComponentListIsAdjusting()) {
+			listPaneOutOfSync = true;
+			return;
 		}
 		
-		@Override
-		public void
-		contentsChanged(ListDataEvent e) {
-			boolean adjusting = componentList.getModel().getComponentListIsAdjusting();
-			if(componentList.getAutoUpdate() && !adjusting) updateList();
+		// shrink the unchanged head and tail of the list
+		int size = componentList.getRowModel().getSize();
+		cleanHead = Math.min(cleanHead, first);
+		
+		if(e.getType() == ListDataEvent.INTERVAL_REMOVED) {
+			cleanTail = Math.min(cleanTail, size - first);
+		} else {
+			cleanTail = Math.min(cleanTail, size - 1 - last);
 		}
-		///////
 		
+		cleanTail = Math.max(0, cleanTail);
+	}
+	
+	/**
+	 * Applies the pending data model changes to <code>listPane</code> without
+	 * rebuilding the whole list. The rows between the unchanged head and tail
+	 * of the list are replaced, keeping the rows which haven't changed their position.
+	 * If the list cannot be updated incrementally a full rebuild is performed instead.
+	 */
+	@Override
+	public void
+	flushPendingUpdates() {
+		if(!updatePending) return;
+		updatePending = false;
+		endLayoutPass();
+		
+		int size = componentList.getRowModel().getSize();
+		boolean virtualized = componentList.isVirtualized();
 		
-		// Implementation of ListSelectionListener interface
-		@Override
-		public void
-		valueChanged(ListSelectionEvent e) {
-			for(int i = e.getFirstIndex(); i <= e.getLastIndex(); i++)
-				componentList.fireSelectionProbablyChanged(i);
+		if(listPaneOutOfSync || rowMetrics.getSize() != pendingStartSize) {
+			updateList();
+			return;
 		}
 		
-		// Implementation of PropertyChangeListener interface
-		@Override
-		public void
-		propertyChange(PropertyChangeEvent e) {
-			String name = e.getPropertyName();
-			
-			if(e.getPropertyName() == "model") {
-				ComponentListModel old1 = (ComponentListModel)e.getOldValue();
-				ComponentListModel new1 = (ComponentListModel)e.getNewValue();
-				
-				if(old1 != null) old1.removeListDataListener(getHandler());
-				if(new1 != null) new1.addListDataListener(getHandler());
-			}
+		if(!virtualized && getRowCount() != pendingStartSize) {
+			updateList();
+			return;
 		}
 		
-		// Implementation of MouseListener interface
-		@Override
-		public void
-		mouseClicked(MouseEvent e) { }
+		int head = Math.min(cleanHead, Math.min(pendingStartSize, size));
+		int tail = Math.min(cleanTail, Math.min(pendingStartSize, size) - head);
+		int oldCount = pendingStartSize - head - tail;
+		int newCount = size - head - tail;
+		int n = Math.min(oldCount, newCount);
 		
-		@Override
-		public void
-		mouseEntered(MouseEvent e) { }
+		updateScrollAnchor(head, oldCount, newCount);
 		
-		@Override
-		public void
-		mouseExited(MouseEvent e) { }
+		if(!virtualized && !updateRows(head, oldCount, newCount)) {
+			updateList();
+			return;
+		}
 		
-		@Override
-		public void
-		mousePressed(MouseEvent e) {
-			Component c;
-			if(e.getSource() == listPane) {
-				c = listPane.getComponentAt(e.getX(), e.getY());
-			} else {
-				c = (Component)e.getSource();
-			}
-			
-			processSelectionEvent(c, e.isControlDown(), e.isShiftDown());	
+		// only the changed span is repainted, the rows moved by the layout repaint themselves
+		int top = listPane.getInsets().top;
+		int y0 = top + rowMetrics.getOffset(head);
+		int y1 = oldCount == newCount ? top + rowMetrics.getOffset(head + oldCount) : listPane.getHeight();
+		
+		if(n > 0) rowMetrics.invalidate(head, head + n - 1);
+		if(newCount > n) rowMetrics.insert(head + n, newCount - n);
+		else if(oldCount > n) rowMetrics.remove(head + n, oldCount - n);
+		
+		if(rowMetrics.getSize() != size || (!virtualized && getRowCount() != size)) {
+			updateList();
+			return;
 		}
 		
-		@Override
-		public void
-		mouseReleased(MouseEvent e) { }
-		///////
+		listPane.revalidate();
+		if(y1 > y0) listPane.repaint(0, y0, listPane.getWidth(), y1 - y0);
+	}
+	
+	/**
+	 * Replaces the specified number of <code>listPane</code> rows starting at the specified
+	 * position with the specified number of the corresponding data model components.
+	 * The rows whose position in the data model hasn't changed are not removed.
+	 * @return <code>false</code> if some of the components is already
+	 * added to <code>listPane</code> at another position, in which case
+	 * the list cannot be updated incrementally.
+	 */
+	private boolean
+	updateRows(int index, int oldCount, int newCount) {
+		ReadOnlyComponentListModel<?> m = componentList.getRowModel();
+		int n = Math.min(oldCount, newCount);
+		
+		for(int i = index + oldCount - 1; i >= index; i--) {
+			if(i >= index + n || listPane.getComponent(i) != m.get(i)) listPane.remove(i);
+		}
+		
+		// the kept rows are moved back to their positions by the insertions before them
+		for(int i = index; i < index + newCount; i++) {
+			Component c = m.get(i);
+			if(i < getRowCount() && listPane.getComponent(i) == c) continue;
+			if(c.getParent() == listPane) return false;
+			
+			listPane.add(c, i);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Determines the interval of rows that intersect the visible
+	 * area of the list, extended with the overscan of the list.
+	 * @return The first and the last row to be added to <code>listPane</code>,
+	 * or <code>null</code> if the list is empty.
+	 */
+	private int[]
+	getRowsToRealize() {
+		int size = rowMetrics.getSize();
+		if(size == 0 || size != componentList.getRowModel().getSize()) return null;
+		
+		Rectangle r;
+		if(viewport != null && viewport.getView() != null) {
+			r = viewport.getViewRect();
+			r = SwingUtilities.convertRectangle(viewport.getView(), r, listPane);
+		} else {
+			r = new Rectangle(0, 0, listPane.getWidth(), listPane.getHeight());
+		}
+		
+		int top = r.y - listPane.getInsets().top;
+		int overscan = componentList.getOverscan();
+		int first = rowMetrics.getRowAt(top) - overscan;
+		int last = rowMetrics.getRowAt(top + Math.max(0, r.height - 1)) + overscan;
+		
+		return new int[] { Math.max(0, first), Math.min(size - 1, last) };
+	}
+	
+	/**
+	 * Makes <code>listPane</code> contain exactly the components of the
+	 * specified interval of rows, keeping the already added components.
+	 */
+	private void
+	realizeRows(int first, int last) {
+		ReadOnlyComponentListModel<?> m = componentList.getRowModel();
+		Set<Component> rows = Collections.newSetFromMap(new IdentityHashMap<Component, Boolean>());
+		for(int i = first; i <= last; i++) rows.add(m.get(i));
+		
+		for(int i = listPane.getComponentCount() - 1; i >= 0; i--) {
+			Component c = listPane.getComponent(i);
+			if(!rows.contains(c)) listPane.remove(i);
+		}
+		
+		for(int i = first; i <= last; i++) {
+			Component c = m.get(i);
+			int j = i - first;
+			if(j < listPane.getComponentCount() && listPane.getComponent(j) == c) continue;
+			
+			listPane.add(c, j);
+		}
+		
+		firstRealizedRow = first;
+		lastRealizedRow = last;
+	}
+	
+	/**
+	 * Layout of <code>listPane</code>, which stacks the rows vertically. The sizes of
+	 * the rows are cached in <code>rowMetrics</code>, so that the offsets of the rows
+	 * and the row at a given point are resolved in logarithmic time. A row is measured
+	 * again only when it is invalidated or changed in the data model, and only the bounds
+	 * of the rows whose position or size may have changed are updated.
+	 * <p>When the list is virtualized, only the rows intersecting the visible area of
+	 * the enclosing viewport are added to <code>listPane</code> and the rest are
+	 * represented by their cached or estimated heights.</p>
+	 */
+	private class ListLayout implements LayoutManager2 {
+		private int preferredWidth = 0;
+		
+		/** The width of <code>listPane</code> when the rows were last laid out. */
+		private int layoutWidth = -1;
+		
+		@Override
+		public void
+		addLayoutComponent(String name, Component comp) { }
+		
+		@Override
+		public void
+		addLayoutComponent(Component comp, Object constraints) { }
+		
+		@Override
+		public void
+		removeLayoutComponent(Component comp) { }
+		
+		@Override
+		public Dimension
+		preferredLayoutSize(Container parent) {
+			checkLayoutPass();
+			if(layoutPassSize != null) return new Dimension(layoutPassSize);
+			
+			if(componentList.isVirtualized()) {
+				if(isInSync()) {
+					int last = Math.min(lastRealizedRow, rowMetrics.getSize() - 1);
+					measureRows(firstRealizedRow, last);
+					
+					int w = rowMetrics.getMaxPreferredWidth(firstRealizedRow, last);
+					preferredWidth = Math.max(preferredWidth, w);
+				}
+			} else if(isInSync()) {
+				int last = rowMetrics.getSize() - 1;
+				measureRows(0, last);
+				preferredWidth = rowMetrics.getMaxPreferredWidth(0, last);
+			}
+			
+			// While the list is out of sync the row metrics still describe the rows
+			// as they were last laid out, so the list keeps its size and scroll position.
+			Insets in = parent.getInsets();
+			int w = preferredWidth + in.left + in.right;
+			int h = rowMetrics.getTotalHeight();
+			
+			layoutPassSize = new Dimension(w, h + in.top + in.bottom);
+			return new Dimension(layoutPassSize);
+		}
+		
+		/** The minimum size is the preferred size, which is computed once per layout pass. */
+		@Override
+		public Dimension
+		minimumLayoutSize(Container parent) { return preferredLayoutSize(parent); }
+		
+		@Override
+		public Dimension
+		maximumLayoutSize(Container target) {
+			return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+		}
+		
+		@Override
+		public float
+		getLayoutAlignmentX(Container target) { return 0.5f; }
+		
+		@Override
+		public float
+		getLayoutAlignmentY(Container target) { return 0.5f; }
+		
+		/** Drops the cached size when <code>listPane</code> is invalidated. */
+		@Override
+		public void
+		invalidateLayout(Container target) { layoutPassSize = null; }
+		
+		@Override
+		public void
+		layoutContainer(Container parent) {
+			updateViewport();
+			
+			// the rows keep their last bounds until the list is updated
+			if(!isInSync()) return;
+			
+			int totalHeight = rowMetrics.getTotalHeight();
+			int[] rows = null;
+			Insets in = parent.getInsets();
+			int w = parent.getWidth() - in.left - in.right;
+			
+			if(!componentList.isVirtualized()) {
+				int n = parent.getComponentCount();
+				
+				if(n > 0) {
+					rows = new int[] { 0, n - 1 };
+					measureRows(0, n - 1);
+				}
+				
+				applyScrollAnchor();
+			} else {
+				// The measured heights may change the rows that fit in the visible area
+				for(int i = 0; i < 2; i++) {
+					applyScrollAnchor();
+					rows = getRowsToRealize();
+					if(rows == null) break;
+					
+					realizeRows(rows[0], rows[1]);
+					if(!measureRows(rows[0], rows[1])) break;
+				}
+				
+				if(rows == null) realizeRows(0, -1);
+			}
+			
+			if(rows != null) {
+				// the rows before the first changed row keep their bounds unless invalidated
+				int firstChanged = w == layoutWidth ? rowMetrics.getFirstChangedRow() : 0;
+				if(componentList.isVirtualized()) firstChanged = 0;
+				
+				// the rows before it aren't visited unless one of them may have invalidated listPane
+				int first = listPane.isRowInvalidated() ? rows[0] : Math.max(rows[0], firstChanged);
+				
+				for(int i = first; i <= rows[1]; i++) {
+					Component c = parent.getComponent(i - rows[0]);
+					if(i < firstChanged && c.isValid()) continue;
+					
+					int h = rowMetrics.getHeight(i);
+					int cw = Math.min(w, rowMetrics.getMaximumWidth(i));
+					int x = in.left + (int)((w - cw) * c.getAlignmentX());
+					c.setBounds(x, in.top + rowMetrics.getOffset(i), cw, h);
+				}
+			}
+			
+			rowMetrics.clearChanges();
+			listPane.rowsInvalidated = false;
+			layoutWidth = w;
+			
+			if(totalHeight != rowMetrics.getTotalHeight()) {
+				// the pending scroll is resolved after the size of listPane is updated
+				SwingUtilities.invokeLater(new Runnable() {
+					public void
+					run() { if(listPane != null) listPane.revalidate(); }
+				});
+			} else {
+				// the row heights are settled, so the anchor is not needed anymore
+				anchorRow = -1;
+				anchorComponent = null;
+				resolvePendingScroll();
+			}
+		}
+		
+		/** Determines whether the row metrics match the data model. */
+		private boolean
+		isInSync() {
+			if(listPaneOutOfSync) return false;
+			
+			int size = componentList.getRowModel().getSize();
+			if(rowMetrics.getSize() != size) return false;
+			
+			return componentList.isVirtualized() || getRowCount() == size;
+		}
+		
+		/**
+		 * Updates the cached sizes of the specified rows. Only the rows which are not measured
+		 * yet and the rows which have been invalidated since they were last validated are
+		 * measured, so the cost of the layout is proportional to the number of the changed rows.
+		 * The changes of the data model mark the changed rows as not measured. A row invalidated
+		 * by itself invalidates <code>listPane</code>, but can't be identified by that, so all
+		 * rows of <code>listPane</code> are checked only after such an invalidation.
+		 * The rows already checked during the current layout pass are skipped.
+		 * @return <code>true</code> if the height of at least one row has changed.
+		 */
+		private boolean
+		measureRows(int first, int last) {
+			checkLayoutPass();
+			boolean changed = false;
+			
+			// the unmeasured rows are found in logarithmic time
+			if(!componentList.isVirtualized() && !listPane.isRowInvalidated()) {
+				for(int i = rowMetrics.getNextUnmeasuredRow(first); i != -1 && i <= last;) {
+					layoutPassRows.set(i);
+					if(measureRow(i)) changed = true;
+					i = rowMetrics.getNextUnmeasuredRow(i + 1);
+				}
+				
+				return changed;
+			}
+			
+			for(int i = layoutPassRows.nextClearBit(first); i <= last; i = layoutPassRows.nextClearBit(i + 1)) {
+				layoutPassRows.set(i);
+				
+				Component c = componentList.getRowModel().get(i);
+				if(rowMetrics.isMeasured(i) && c.isValid()) continue;
+				if(measureRow(i)) changed = true;
+			}
+			
+			return changed;
+		}
+		
+		/**
+		 * Updates the cached size of the specified row.
+		 * @return <code>true</code> if the height of the row has changed.
+		 */
+		private boolean
+		measureRow(int index) {
+			Component c = componentList.getRowModel().get(index);
+			Dimension d = c.getPreferredSize();
+			rowMetrics.setWidths(index, d.width, c.getMaximumSize().width);
+			return rowMetrics.setHeight(index, d.height);
+		}
+		
+		private void
+		updateViewport() {
+			JViewport vp = (JViewport)SwingUtilities.getAncestorOfClass(JViewport.class, listPane);
+			if(vp == viewport) return;
+			
+			if(viewport != null) viewport.removeChangeListener(getHandler());
+			viewport = vp;
+			if(viewport != null) viewport.addChangeListener(getHandler());
+		}
+	}
+	
+	/**
+	 * Gets the index of the row at the specified point of <code>listPane</code>.
+	 * The row is found in logarithmic time using the cached row offsets.
+	 * @return The index of the row at the specified point
+	 * or -1 if there is no row at that point.
+	 */
+	private int
+	getRowAt(Point p) {
+		flushPendingUpdates();
+		
+		ReadOnlyComponentListModel<?> m = componentList.getRowModel();
+		int idx = -1;
+		
+		if(listPaneOutOfSync) {
+			Component c = listPane.getComponentAt(p);
+			idx = c == null || c == listPane ? -1 : m.indexOf(c);
+		} else {
+			idx = rowMetrics.getRowAt(p.y - listPane.getInsets().top);
+		}
+		
+		if(idx < 0 || idx >= m.getSize()) return -1;
+		
+		Component c = m.get(idx);
+		if(c.getParent() != listPane || !c.getBounds().contains(p)) return -1;
+		
+		return idx;
+	}
+	
+	/**
+	 * Gets the interval of rows intersecting the specified vertical range of <code>listPane</code>.
+	 * The rows are found in logarithmic time using the cached row offsets.
+	 * @return The first and the last row in the range or <code>null</code> if there are no such rows.
+	 */
+	private int[]
+	getRowsInRange(int y1, int y2) {
+		flushPendingUpdates();
+		if(listPaneOutOfSync || rowMetrics.getSize() == 0) return null;
+		
+		int top = listPane.getInsets().top;
+		y1 -= top;
+		y2 -= top;
+		if(y2 < 0 || y1 >= rowMetrics.getTotalHeight()) return null;
+		
+		return new int[] { rowMetrics.getRowAt(y1), rowMetrics.getRowAt(y2) };
+	}
+	
+	/** The panel containing the rows of the list. */
+	private class ListPane extends JPanel {
+		/** The cached images of the rows or <code>null</code> if the rows are painted directly. */
+		private RowSnapshotCache snapshotCache = null;
+		
+		ListPane() {
+			// receive the mouse events of the rows that don't have mouse listeners
+			enableEvents(AWTEvent.MOUSE_EVENT_MASK);
+		}
+		
+		void
+		setSnapshotCache(RowSnapshotCache cache) {
+			if(snapshotCache != null) snapshotCache.dispose();
+			snapshotCache = cache;
+			repaint();
+		}
+		
+		/**
+		 * Set when <code>listPane</code> is invalidated, which may be caused by
+		 * the invalidation of a row, and cleared when the rows are laid out.
+		 */
+		boolean rowsInvalidated = true;
+		
+		private boolean settingBounds = false;
+		
+		/** Determines whether a row may have been invalidated since the rows were last laid out. */
+		boolean
+		isRowInvalidated() {
+			// without a peer listPane is never valid, so the invalidation of a row doesn't reach it
+			return rowsInvalidated || !isDisplayable();
+		}
+		
+		@Override
+		public void
+		invalidate() {
+			if(!settingBounds) rowsInvalidated = true;
+			super.invalidate();
+		}
+		
+		/**
+		 * The resizing of <code>listPane</code> by the layout of its parent is
+		 * followed by its validation, so no row can be invalidated in between.
+		 */
+		@Override
+		public void
+		setBounds(int x, int y, int width, int height) {
+			settingBounds = true;
+			
+			try { super.setBounds(x, y, width, height); }
+			finally { settingBounds = false; }
+		}
+		
+		/** The layout pass ends when the measured rows are validated. */
+		@Override
+		protected void
+		validateTree() {
+			super.validateTree();
+			endLayoutPass();
+		}
+		
+		@Override
+		protected void
+		paintChildren(Graphics g) {
+			// the rows are painted directly if the repaint manager has been replaced
+			if(snapshotCache == null || isPaintingForPrint() || !snapshotCache.isTracking()) {
+				super.paintChildren(g);
+				return;
+			}
+			
+			Rectangle clip = g.getClipBounds();
+			int offset = componentList.isVirtualized() ? firstRealizedRow : 0;
+			
+			for(int i = 0; i < getComponentCount(); i++) {
+				Component c = getComponent(i);
+				if(!c.isVisible() || (clip != null && !clip.intersects(c.getBounds()))) continue;
+				
+				snapshotCache.paintRow(c, g, selectionSnapshot.get(offset + i));
+			}
+		}
+		
+		@Override
+		public void
+		remove(int index) {
+			if(snapshotCache != null) snapshotCache.remove(getComponent(index));
+			super.remove(index);
+		}
+		
+		@Override
+		public void
+		removeAll() {
+			if(snapshotCache != null) {
+				for(Component c : getComponents()) snapshotCache.remove(c);
+			}
+			
+			super.removeAll();
+		}
+	}
+	
+	/**
+	 * Handles the mouse events of <code>listPane</code> and its rows,
+	 * so that no listeners need to be registered on the rows.
+	 * <p>When the lasso selection of the list is enabled, dragging the mouse from a row
+	 * or from the empty area of the list selects the rows intersecting the dragged
+	 * rectangle (with the control key down, the rows are added to the selection). The rows
+	 * are resolved through the cached row offsets and the selection is updated at most
+	 * once per frame, with a single selection change. When the drag reordering
+	 * of the list is enabled, dragging a selected row moves the selected rows instead.</p>
+	 */
+	private class ListLayerUI extends LayerUI<JPanel> {
+		/** The delay in milliseconds between the selection updates while dragging. */
+		private final static int LASSO_DELAY = 16;
+		
+		/** The point where the mouse was pressed or <code>null</code>. */
+		private Point pressPoint = null;
+		
+		/** The rectangle being dragged or <code>null</code> if the lasso is not active. */
+		private Rectangle lasso = null;
+		
+		private boolean lassoAdding = false;
+		
+		/** The selection before the dragging started, restored when rows leave the lasso. */
+		private BitSet baseSelection = null;
+		
+		/** The rows selected by the lasso on the last update (empty if <code>first > last</code>). */
+		private int lassoFirst = 0, lassoLast = -1;
+		
+		private final Timer lassoTimer = new Timer(LASSO_DELAY, e -> updateLassoSelection());
+		
+		/**
+		 * The selected row pressed when the drag reordering is enabled, whose
+		 * selection is deferred until the mouse is released without dragging, or -1.
+		 */
+		private int pressedRow = -1;
+		
+		/** The position where the dragged rows will be dropped or -1 if not reordering. */
+		private int dropIndex = -1;
+		
+		/** The characters typed so far by the type-ahead search. */
+		private final StringBuilder typedPrefix = new StringBuilder();
+		
+		/** The time when the last character was typed. */
+		private long typedTime = 0;
+		
+		ListLayerUI() { lassoTimer.setRepeats(false); }
+		
+		@Override
+		public void
+		installUI(JComponent c) {
+			super.installUI(c);
+			((JLayer)c).setLayerEventMask (
+				AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK | AWTEvent.KEY_EVENT_MASK
+			);
+		}
+		
+		@Override
+		public void
+		uninstallUI(JComponent c) {
+			((JLayer)c).setLayerEventMask(0);
+			lassoTimer.stop();
+			super.uninstallUI(c);
+		}
+		
+		@Override
+		public void
+		paint(Graphics g, JComponent c) {
+			super.paint(g, c);
+			
+			if(dropIndex != -1 && listPane != null && dropIndex <= rowMetrics.getSize()) {
+				paintDropLine(g, c);
+			}
+			
+			if(lasso == null || listPane == null) return;
+			
+			Rectangle r = SwingUtilities.convertRectangle(listPane, lasso, c);
+			Color color = UIManager.getColor("List.selectionBackground");
+			if(color == null) color = Color.BLUE;
+			
+			g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 64));
+			g.fillRect(r.x, r.y, r.width, r.height);
+			g.setColor(color);
+			g.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+		}
+		
+		/** Paints the drop position of the dragged rows. */
+		private void
+		paintDropLine(Graphics g, JComponent c) {
+			Rectangle r = SwingUtilities.convertRectangle(listPane, getDropLineBounds(), c);
+			Color color = UIManager.getColor("List.dropLineColor");
+			g.setColor(color == null ? Color.DARK_GRAY : color);
+			g.fillRect(r.x, r.y, r.width, r.height);
+		}
+		
+		private Rectangle
+		getDropLineBounds() {
+			Insets in = listPane.getInsets();
+			int y = in.top + rowMetrics.getOffset(dropIndex);
+			return new Rectangle(in.left, y - 1, listPane.getWidth() - in.left - in.right, 2);
+		}
+		
+		@Override
+		protected void
+		processMouseEvent(MouseEvent e, JLayer<? extends JPanel> l) {
+			if(listPane == null) return;
+			
+			if(e.getID() == MouseEvent.MOUSE_RELEASED) {
+				if(dropIndex != -1) endReordering();
+				else if(pressPoint != null) endLasso();
+				
+				if(pressedRow != -1 && pressedRow < componentList.getRowModel().getSize()) {
+					// the pressed row was not dragged
+					processSelectionEvent(componentList.getRowModel().get(pressedRow), pressedRow, false, false);
+				}
+				
+				pressedRow = -1;
+				return;
+			}
+			
+			if(e.getID() != MouseEvent.MOUSE_PRESSED) return;
+			
+			// the events of the row descendants are not handled
+			Component src = e.getComponent();
+			if(src != listPane && src.getParent() != listPane) return;
+			
+			Point p = SwingUtilities.convertPoint(src, e.getPoint(), listPane);
+			int idx = getRowAt(p);
+			Component c = idx == -1 ? null : componentList.getRowModel().get(idx);
+			boolean left = SwingUtilities.isLeftMouseButton(e);
+			
+			// keep the selection, so that all selected rows can be dragged
+			boolean reorder = left && idx != -1 && componentList.getDragReordering() && isMoveSupported();
+			reorder = reorder && !e.isControlDown() && !e.isShiftDown() && componentList.isSelectedIndex(idx);
+			
+			pressedRow = reorder ? idx : -1;
+			if(!reorder) processSelectionEvent(c, idx, e.isControlDown(), e.isShiftDown());
+			
+			if(left && !e.isShiftDown() && (reorder || componentList.getLassoSelection())) {
+				pressPoint = p;
+				lassoAdding = e.isControlDown();
+			}
+		}
+		
+		@Override
+		protected void
+		processKeyEvent(KeyEvent e, JLayer<? extends JPanel> l) {
+			if(e.getID() != KeyEvent.KEY_TYPED || listPane == null || typeAheadIndex == null) return;
+			if(e.isControlDown() || e.isAltDown() || e.isMetaDown()) return;
+			
+			// the events of the row descendants, like text fields, are not handled
+			Component src = e.getComponent();
+			if(src != listPane && src.getParent() != listPane) return;
+			
+			char ch = e.getKeyChar();
+			if(ch == KeyEvent.CHAR_UNDEFINED || Character.isISOControl(ch)) return;
+			
+			Object o = UIManager.get("List.timeFactor");
+			long timeout = o instanceof Number ? ((Number)o).longValue() : 1000L;
+			boolean skipCurrent;
+			
+			if(e.getWhen() - typedTime < timeout && typedPrefix.length() > 0) {
+				// typing the same character repeatedly cycles through the matching components
+				skipCurrent = typedPrefix.length() == 1 && typedPrefix.charAt(0) == ch;
+				if(!skipCurrent) typedPrefix.append(ch);
+			} else {
+				typedPrefix.setLength(0);
+				typedPrefix.append(ch);
+				skipCurrent = true;
+			}
+			
+			typedTime = e.getWhen();
+			
+			int ai = componentList.getSelectionModel().getAnchorSelectionIndex();
+			selectNextMatch(typedPrefix.toString(), ai, skipCurrent);
+		}
+		
+		@Override
+		protected void
+		processMouseMotionEvent(MouseEvent e, JLayer<? extends JPanel> l) {
+			if(e.getID() != MouseEvent.MOUSE_DRAGGED || pressPoint == null || listPane == null) return;
+			
+			Point p = SwingUtilities.convertPoint(e.getComponent(), e.getPoint(), listPane);
+			
+			if(lasso == null && dropIndex == -1) {
+				int d = DragSource.getDragThreshold();
+				if(Math.abs(p.x - pressPoint.x) <= d && Math.abs(p.y - pressPoint.y) <= d) return;
+			}
+			
+			if(pressedRow != -1 || dropIndex != -1) {
+				pressedRow = -1;
+				updateDropIndex(p);
+				listPane.scrollRectToVisible(new Rectangle(p.x, p.y, 1, 1));
+				return;
+			}
+			
+			if(lasso == null) {
+				if(!componentList.getLassoSelection()) return;
+				
+				baseSelection = (BitSet)selectionSnapshot.clone();
+				lassoFirst = 0;
+				lassoLast = -1;
+				componentList.getSelectionModel().setValueIsAdjusting(true);
+			} else {
+				repaintLasso();
+			}
+			
+			lasso = new Rectangle(pressPoint);
+			lasso.add(p);
+			repaintLasso();
+			
+			listPane.scrollRectToVisible(new Rectangle(p.x, p.y, 1, 1));
+			if(!lassoTimer.isRunning()) lassoTimer.start();
+		}
+		
+		/** Updates the position where the dragged rows will be dropped. */
+		private void
+		updateDropIndex(Point p) {
+			int[] rows = getRowsInRange(p.y, p.y);
+			int idx;
+			
+			if(rows == null) {
+				idx = p.y < listPane.getInsets().top ? 0 : rowMetrics.getSize();
+			} else {
+				idx = rows[0];
+				Rectangle r = getRowBounds(idx);
+				if(p.y >= r.y + r.height / 2) idx++;
+			}
+			
+			if(idx == dropIndex) return;
+			
+			if(dropIndex != -1) listPane.repaint(getDropLineBounds());
+			dropIndex = idx;
+			listPane.repaint(getDropLineBounds());
+		}
+		
+		/**
+		 * Moves the selected rows to the drop position in a single batch
+		 * and selects the moved rows.
+		 */
+		private void
+		endReordering() {
+			listPane.repaint(getDropLineBounds());
+			int gap = dropIndex;
+			dropIndex = -1;
+			pressPoint = null;
+			
+			if(!isMoveSupported()) return;
+			
+			ComponentListModel<?> m = componentList.getModel();
+			ListSelectionModel sm = componentList.getSelectionModel();
+			int first = sm.getMinSelectionIndex(), last = Math.min(sm.getMaxSelectionIndex(), m.getSize() - 1);
+			if(first == -1 || first > last) return;
+			
+			// the runs of selected rows, which are moved before the first unselected row after the gap
+			ArrayList<Component> runs = new ArrayList<Component>();
+			ArrayList<Integer> runLengths = new ArrayList<Integer>();
+			Component anchor = null;
+			int count = 0;
+			
+			for(int i = first; i <= last; i++) {
+				if(!sm.isSelectedIndex(i)) continue;
+				
+				int j = i;
+				while(j < last && sm.isSelectedIndex(j + 1)) j++;
+				runs.add(m.get(i));
+				runLengths.add(j - i + 1);
+				count += j - i + 1;
+				i = j;
+			}
+			
+			for(int i = gap; i < m.getSize(); i++) {
+				if(!sm.isSelectedIndex(i)) {
+					anchor = m.get(i);
+					break;
+				}
+			}
+			
+			Component firstMoved = runs.get(0);
+			
+			m.beginBatch();
+			try {
+				for(int k = 0; k < runs.size(); k++) {
+					int from = m.indexOf(runs.get(k)), n = runLengths.get(k);
+					int a = anchor == null ? m.getSize() : m.indexOf(anchor);
+					m.move(from, from < a ? a - n : a, n);
+				}
+			} finally {
+				m.endBatch();
+			}
+			
+			int idx = m.indexOf(firstMoved);
+			if(idx != -1) sm.setSelectionInterval(idx, idx + count - 1);
+		}
+		
+		/** Determines whether the rows can be moved through the data model of the list. */
+		private boolean
+		isMoveSupported() {
+			ComponentListModel<?> m = componentList.getModel();
+			return m != null && m.isMoveSupported();
+		}
+		
+		private void
+		endLasso() {
+			if(lasso == null) {
+				pressPoint = null;
+				return;
+			}
+			
+			lassoTimer.stop();
+			updateLassoSelection();
+			repaintLasso();
+			
+			pressPoint = null;
+			lasso = null;
+			baseSelection = null;
+			componentList.getSelectionModel().setValueIsAdjusting(false);
+		}
+		
+		private void
+		repaintLasso() {
+			listPane.repaint(lasso.x, lasso.y, lasso.width + 1, lasso.height + 1);
+		}
+		
+		/** Selects the rows intersecting the lasso. */
+		private void
+		updateLassoSelection() {
+			if(lasso == null || listPane == null) return;
+			
+			ListSelectionModel sm = componentList.getSelectionModel();
+			int[] rows = getRowsInRange(lasso.y, lasso.y + lasso.height);
+			int first = rows == null ? 0 : rows[0];
+			int last = rows == null ? -1 : rows[1];
+			
+			// the anchor is the row where the dragging started
+			boolean up = lasso.y < pressPoint.y;
+			int anchor = up ? last : first, lead = up ? first : last;
+			
+			if(!lassoAdding || sm.getSelectionMode() != ListSelectionModel.MULTIPLE_INTERVAL_SELECTION) {
+				if(first > last) sm.clearSelection();
+				else sm.setSelectionInterval(anchor, lead);
+			} else {
+				// the rows which are not in the lasso anymore get their original selection
+				int lo = first, hi = last;
+				if(first > last) {
+					lo = lassoFirst;
+					hi = lassoLast;
+					anchor = sm.getAnchorSelectionIndex();
+					lead = sm.getLeadSelectionIndex();
+				} else if(lassoFirst <= lassoLast) {
+					lo = Math.min(lo, lassoFirst);
+					hi = Math.max(hi, lassoLast);
+				}
+				
+				if(lo <= hi) {
+					BitSet selection = baseSelection.get(0, hi + 1);
+					if(first <= last) selection.set(first, last + 1);
+					setSelection(selection, lo, hi, anchor, lead);
+				}
+			}
+			
+			lassoFirst = first;
+			lassoLast = last;
+		}
+		
+		/**
+		 * Replaces the selection of the rows in the specified interval
+		 * with the specified selection, using a single selection change.
+		 */
+		private void
+		setSelection(BitSet selection, int first, int last, int anchor, int lead) {
+			ListSelectionModel sm = componentList.getSelectionModel();
+			
+			if(sm instanceof ComponentListSelectionModel) {
+				((ComponentListSelectionModel)sm).setSelection(selection, first, last, anchor, lead);
+				return;
+			}
+			
+			sm.removeSelectionInterval(first, last);
+			
+			for(int i = selection.nextSetBit(first); i != -1 && i <= last; i = selection.nextSetBit(i + 1)) {
+				int j = Math.min(last, selection.nextClearBit(i) - 1);
+				sm.addSelectionInterval(i, j);
+				i = j;
+			}
+			
+			if(anchor != -1 && lead != -1 && selection.get(anchor)) sm.addSelectionInterval(anchor, lead);
+		}
+	}
+	
+	private final Handler handler = new Handler();
+	
+	private Handler
+	getHandler() { return handler; }
+	
+	private class Handler implements ListDataListener, ListSelectionListener,
+			PropertyChangeListener, ChangeListener {
+		
+		// Implementation of ListDataListener interface
+		@Override
+		public void
+		intervalAdded(ListDataEvent e) {
+			ListSelectionModel m = componentList.getSelectionModel();
+			if(m == null) return;
+			
+			int min = Math.min(e.getIndex0(), e.getIndex1());
+			int max = Math.max(e.getIndex0(), e.getIndex1());
+			if(min >= 0) insertSnapshotRows(min, max - min + 1);
+			updateTypeAheadIndex(min, 0, max - min + 1);
+			m.insertIndexInterval(min, max - min + 1, true);
+			
+			// the inserted rows may inherit the selection without being reported as changed
+			updateSelectionSnapshot(min, max, m.getValueIsAdjusting());
+			
+			applyListDataEvent(e);
+		}
+		
+		@Override
+		public void
+		intervalRemoved(ListDataEvent e) {
+			int min = Math.min(e.getIndex0(), e.getIndex1());
+			int max = Math.max(e.getIndex0(), e.getIndex1());
+			if(min >= 0) removeSnapshotRows(min, max);
+			updateTypeAheadIndex(min, max - min + 1, 0);
+			
+			ListSelectionModel m = componentList.getSelectionModel();
+			if(m != null) m.removeIndexInterval(e.getIndex0(), e.getIndex1());
+			
+			applyListDataEvent(e);
+		}
+		
+		@Override
+		public void
+		contentsChanged(ListDataEvent e) {
+			int min = Math.min(e.getIndex0(), e.getIndex1());
+			int max = Math.max(e.getIndex0(), e.getIndex1());
+			updateTypeAheadIndex(min, max - min + 1, max - min + 1);
+			
+			applyListDataEvent(e);
+		}
+		///////
+		
+		
+		// Implementation of ListSelectionListener interface
+		@Override
+		public void
+		valueChanged(ListSelectionEvent e) {
+			updateSelectionSnapshot(e.getFirstIndex(), e.getLastIndex(), e.getValueIsAdjusting());
+		}
+		
+		// Implementation of PropertyChangeListener interface
+		@Override
+		public void
+		propertyChange(PropertyChangeEvent e) {
+			String name = e.getPropertyName();
+			
+			if(name == "rowModel") {
+				ReadOnlyComponentListModel<?> old1 = (ReadOnlyComponentListModel<?>)e.getOldValue();
+				ReadOnlyComponentListModel<?> new1 = (ReadOnlyComponentListModel<?>)e.getNewValue();
+				
+				if(old1 != null) old1.removeListDataListener(getHandler());
+				if(new1 != null) new1.addListDataListener(getHandler());
+				
+				listPaneOutOfSync = true;
+				selectionSnapshot.clear();
+				if(typeAheadIndex != null) typeAheadIndex.invalidate();
+			} else if(name == "selectionModel") {
+				updateSelectionSnapshot(0, componentList.getRowModel().getSize() - 1, false);
+			} else if(name == "virtualized") {
+				listPaneOutOfSync = true;
+				updateList();
+			} else if(name == "overscan") {
+				listPane.revalidate();
+			} else if(name == "rowSnapshotCaching") {
+				updateSnapshotCache();
+			} else if(name == "typeAheadExtractor") {
+				updateTypeAheadIndex();
+			} else if(name == "scrollAnchoring") {
+				anchorRow = -1;
+				anchorComponent = null;
+			}
+		}
+		
+		// Implementation of ChangeListener interface
+		@Override
+		public void
+		stateChanged(ChangeEvent e) {
+			if(anchoring || !componentList.isVirtualized() || e.getSource() != viewport) return;
+			
+			int[] rows = getRowsToRealize();
+			if(rows == null) return;
+			if(rows[0] == firstRealizedRow && rows[1] == lastRealizedRow) return;
+			
+			// Add the newly visible rows before the viewport is painted
+			listPane.doLayout();
+			for(Component c : listPane.getComponents()) c.validate();
+			listPane.repaint();
+		}
+	}
+	
+	/** Sets the selection snapshot to the current selection without notifying the components. */
+	private void
+	resetSelectionSnapshot() {
+		selectionSnapshot.clear();
+		
+		// not initialized yet when the UI is installed by the constructor of ComponentList
+		if(componentList.getRowModel() == null || componentList.getSelectionModel() == null) return;
+		
+		ListSelectionModel sm = componentList.getSelectionModel();
+		int size = componentList.getRowModel().getSize();
+		
+		for(int i = Math.max(0, sm.getMinSelectionIndex()); i <= sm.getMaxSelectionIndex() && i < size; i++) {
+			if(sm.isSelectedIndex(i)) selectionSnapshot.set(i);
+		}
+	}
+	
+	/**
+	 * Compares the selection snapshot in the specified interval with the selection model
+	 * and notifies only the components whose selection state has actually changed.
+	 */
+	private void
+	updateSelectionSnapshot(int first, int last, boolean isAdjusting) {
+		ListSelectionModel sm = componentList.getSelectionModel();
+		
+		first = Math.max(0, first);
+		last = Math.min(componentList.getRowModel().getSize() - 1, last);
+		if(first > last) return;
+		
+		BitSet changed = new BitSet();
+		
+		if(sm instanceof ComponentListSelectionModel) {
+			// visit only the previously and the currently selected indices
+			ComponentListSelectionModel m = (ComponentListSelectionModel)sm;
+			
+			int i = selectionSnapshot.nextSetBit(first);
+			for(; i != -1 && i <= last; i = selectionSnapshot.nextSetBit(i + 1)) {
+				if(!m.isSelectedIndex(i)) changed.set(i);
+			}
+			
+			for(i = m.nextSelectedIndex(first); i != -1 && i <= last; i = m.nextSelectedIndex(i + 1)) {
+				if(!selectionSnapshot.get(i)) changed.set(i);
+			}
+		} else {
+			for(int i = first; i <= last; i++) {
+				if(sm.isSelectedIndex(i) != selectionSnapshot.get(i)) changed.set(i);
+			}
+		}
+		
+		if(changed.isEmpty()) return;
+		
+		selectionSnapshot.xor(changed);
+		
+		for(int i = changed.nextSetBit(0); i != -1; i = changed.nextSetBit(i + 1)) {
+			componentList.fireSelectionProbablyChanged(i);
+		}
+		
+		componentList.fireComponentSelectionChanged(changed.stream().toArray(), isAdjusting);
+	}
+	
+	/** Inserts the specified number of unselected rows into the selection snapshot. */
+	private void
+	insertSnapshotRows(int index, int count) {
+		BitSet s = selectionSnapshot;
+		
+		for(int i = s.length() - 1; i >= index; i = s.previousSetBit(i - 1)) {
+			s.clear(i);
+			s.set(i + count);
+		}
+	}
+	
+	/** Removes the rows in the specified interval from the selection snapshot. */
+	private void
+	removeSnapshotRows(int first, int last) {
+		BitSet s = selectionSnapshot;
+		int count = last - first + 1;
+		
+		s.clear(first, last + 1);
+		
+		for(int i = s.nextSetBit(last + 1); i != -1; i = s.nextSetBit(i + 1)) {
+			s.clear(i);
+			s.set(i - count);
+		}
 	}
 	
 	@Override
 	public void
 	processSelectionEvent(Component c, boolean controlDown, boolean shiftDown) {
+		int idx = c == null ? -1 : componentList.getRowModel().indexOf(c);
+		if(idx != -1 && componentList.getRowModel().get(idx) != c) idx = -1;
+		
+		processSelectionEvent(c, idx, controlDown, shiftDown);
+	}
+	
+	/**
+	 * Process a selection event.
+	 * @param c The component to be focused or <code>null</code> to focus the list.
+	 * @param idx The index of the newly selected component or -1 if the
+	 * selection event is not related to any component of the list.
+	 */
+	private void
+	processSelectionEvent(Component c, int idx, boolean controlDown, boolean shiftDown) {
 		ListSelectionModel sm = componentList.getSelectionModel();
 		
 		if(c == null) {
 			if(!listPane.hasFocus() && listPane.isRequestFocusEnabled())
 				listPane.requestFocus();
-			
-			if( (controlDown || shiftDown) &&
-			    componentList.getSelectionMode() != sm.SINGLE_SELECTION );
-			else componentList.clearSelection();
-			
-			return;
 		} else if(!c.hasFocus()) c.requestFocus();
 		
-		int idx = -1;
-		
-		for(int i = 0; i < componentList.getModel().getSize(); i++) {
-			if(componentList.getModel().get(i) == c) {
-				idx = i;
-				break;
-			}
-		}
-		
 		if(idx == -1) {
 			if( (controlDown || shiftDown) &&
 			    componentList.getSelectionMode() != sm.SINGLE_SELECTION );
@@ -412,7 +1966,7 @@ public class BasicComponentListUI extends ComponentListUI {
 		
 		if(!controlDown) {
 			if(!shiftDown) {
-				componentList.setSelectedComponent(c, false);
+				componentList.setSelectedIndex(idx);
 				return;
 			}
 			
@@ -0,0 +1,457 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+package com.grigoriliev.jsampler.juife.swing.plaf.basic;
+
+import java.util.Arrays;
+
+
+/**
+ * Keeps track of the heights and the vertical offsets of the rows of a
+ * <code>ComponentList</code>, as well as the cached preferred and maximum
+ * widths of the measured rows. The rows which are not measured yet are
+ * assumed to have the estimated row height, which is the average height
+ * of the measured rows.
+ * <p>The sums of the measured heights and the numbers of the measured rows are
+ * kept in two Fenwick trees, so the offset of a row, the row at a given offset
+ * and the update of a row height take <code>O(log n)</code> time, regardless
+ * of the changes of the estimated row height. The preferred widths of the measured
+ * rows are kept in a segment tree, so the greatest preferred width of an interval
+ * of rows is also found in <code>O(log n)</code> time. Inserting and removing rows
+ * invalidates the trees, which are rebuilt in linear time on the next query.</p>
+ * @author Grigor Iliev
+ */
+class RowMetrics {
+	/** The row height used when there are no measured rows. */
+	final static int DEFAULT_ROW_HEIGHT = 20;
+	
+	private int[] heights = new int[16];
+	private boolean[] measured = new boolean[16];
+	private int[] widths = new int[16];
+	private int[] maximumWidths = new int[16];
+	private int size = 0;
+	
+	/** Fenwick tree of the measured heights (1-based). */
+	private int[] heightTree = new int[17];
+	
+	/** Fenwick tree of the number of measured rows (1-based). */
+	private int[] countTree = new int[17];
+	
+	/**
+	 * Segment tree of the preferred widths of the measured rows. The leaves start
+	 * at the capacity of the arrays and the node <code>i</code> holds the greatest
+	 * width of its children <code>2i</code> and <code>2i + 1</code>.
+	 */
+	private int[] widthTree = new int[32];
+	
+	private boolean treeValid = true;
+	
+	private long measuredHeight = 0;
+	private int measuredCount = 0;
+	
+	/** The first row whose offset or height may have changed since the last <code>clearChanges</code>. */
+	private int firstChangedRow = 0;
+	
+	
+	/** Creates a new instance of <code>RowMetrics</code>. */
+	RowMetrics() { }
+	
+	/**
+	 * Gets the number of rows.
+	 * @return The number of rows.
+	 */
+	public int
+	getSize() { return size; }
+	
+	/**
+	 * Gets the height that is assumed for the rows which are not measured yet.
+	 * @return The estimated row height.
+	 */
+	public int
+	getEstimatedRowHeight() {
+		if(measuredCount == 0) return DEFAULT_ROW_HEIGHT;
+		return (int)(measuredHeight / measuredCount);
+	}
+	
+	/**
+	 * Removes all rows and adds the specified number of unmeasured rows.
+	 * @param size The new number of rows.
+	 */
+	public void
+	reset(int size) {
+		this.size = 0;
+		measuredHeight = 0;
+		measuredCount = 0;
+		
+		ensureCapacity(size);
+		Arrays.fill(measured, 0, size, false);
+		this.size = size;
+		
+		treeValid = false;
+		firstChangedRow = 0;
+	}
+	
+	/**
+	 * Inserts the specified number of unmeasured rows at the specified position.
+	 * @param index The position of the first row to insert.
+	 * @param count The number of rows to insert.
+	 */
+	public void
+	insert(int index, int count) {
+		if(count <= 0) return;
+		if(index < 0 || index > size) throw new IndexOutOfBoundsException("index: " + index);
+		
+		ensureCapacity(size + count);
+		System.arraycopy(heights, index, heights, index + count, size - index);
+		System.arraycopy(measured, index, measured, index + count, size - index);
+		System.arraycopy(widths, index, widths, index + count, size - index);
+		System.arraycopy(maximumWidths, index, maximumWidths, index + count, size - index);
+		
+		Arrays.fill(measured, index, index + count, false);
+		
+		size += count;
+		treeValid = false;
+		changed(index);
+	}
+	
+	/**
+	 * Removes the specified number of rows starting at the specified position.
+	 * @param index The position of the first row to remove.
+	 * @param count The number of rows to remove.
+	 */
+	public void
+	remove(int index, int count) {
+		if(count <= 0) return;
+		if(index < 0 || index + count > size) throw new IndexOutOfBoundsException("index: " + index);
+		
+		for(int i = index; i < index + count; i++) unmeasure(i);
+		
+		System.arraycopy(heights, index + count, heights, index, size - index - count);
+		System.arraycopy(measured, index + count, measured, index, size - index - count);
+		System.arraycopy(widths, index + count, widths, index, size - index - count);
+		System.arraycopy(maximumWidths, index + count, maximumWidths, index, size - index - count);
+		
+		size -= count;
+		treeValid = false;
+		changed(index);
+	}
+	
+	/**
+	 * Marks the rows in the specified interval as not measured
+	 * and as changed, because their content has changed.
+	 */
+	public void
+	invalidate(int first, int last) {
+		first = Math.max(0, first);
+		for(int i = first; i <= last && i < size; i++) unmeasure(i);
+		if(first < size && first <= last) changed(first);
+	}
+	
+	/**
+	 * Determines whether the specified row is measured.
+	 * @param index The index of the row.
+	 */
+	public boolean
+	isMeasured(int index) { return measured[checkIndex(index)]; }
+	
+	/**
+	 * Gets the height of the specified row.
+	 * @param index The index of the row.
+	 * @return The measured or the estimated height of the row.
+	 */
+	public int
+	getHeight(int index) {
+		return measured[checkIndex(index)] ? heights[index] : getEstimatedRowHeight();
+	}
+	
+	/**
+	 * Sets the measured height of the specified row.
+	 * @param index The index of the row.
+	 * @param height The new height of the row.
+	 * @return <code>true</code> if the height of the row has changed.
+	 */
+	public boolean
+	setHeight(int index, int height) {
+		if(measured[checkIndex(index)] && heights[index] == height) return false;
+		
+		int old = getHeight(index);
+		int estimate = getEstimatedRowHeight();
+		unmeasure(index);
+		
+		measured[index] = true;
+		heights[index] = height;
+		measuredHeight += height;
+		measuredCount++;
+		updateTrees(index, height, 1);
+		updateWidthTree(index);
+		
+		if(old != height) changed(index);
+		if(estimate != getEstimatedRowHeight()) estimateChanged();
+		
+		return old != height;
+	}
+	
+	/**
+	 * Sets the cached widths of the specified row.
+	 * @param index The index of the row.
+	 * @param preferred The preferred width of the row.
+	 * @param maximum The maximum width of the row.
+	 */
+	public void
+	setWidths(int index, int preferred, int maximum) {
+		widths[checkIndex(index)] = preferred;
+		maximumWidths[index] = maximum;
+		updateWidthTree(index);
+	}
+	
+	/**
+	 * Gets the cached preferred width of the specified row.
+	 * The result is meaningful only if the row is measured.
+	 */
+	public int
+	getPreferredWidth(int index) { return widths[checkIndex(index)]; }
+	
+	/**
+	 * Gets the cached maximum width of the specified row.
+	 * The result is meaningful only if the row is measured.
+	 */
+	public int
+	getMaximumWidth(int index) { return maximumWidths[checkIndex(index)]; }
+	
+	/**
+	 * Gets the greatest preferred width of the measured rows in the specified interval.
+	 * @return The greatest preferred width or 0 if none of the rows is measured.
+	 */
+	public int
+	getMaxPreferredWidth(int first, int last) {
+		validateTrees();
+		
+		int w = 0;
+		int l = Math.max(0, first) + heights.length;
+		int r = Math.min(last, size - 1) + heights.length + 1;
+		
+		for(; l < r; l >>= 1, r >>= 1) {
+			if((l & 1) == 1) w = Math.max(w, widthTree[l++]);
+			if((r & 1) == 1) w = Math.max(w, widthTree[--r]);
+		}
+		
+		return w;
+	}
+	
+	/**
+	 * Gets the first row at or after the specified position which is not measured.
+	 * The row is found in <code>O(log n)</code> time using the number of the measured rows.
+	 * @param index The position to start from.
+	 * @return The index of the first unmeasured row at or after
+	 * the specified position or -1 if there is no such row.
+	 */
+	public int
+	getNextUnmeasuredRow(int index) {
+		if(index >= size || measuredCount == size) return -1;
+		index = Math.max(0, index);
+		
+		validateTrees();
+		
+		// the number of the unmeasured rows before the specified position
+		int n = index;
+		for(int i = index; i > 0; i -= i & -i) n -= countTree[i];
+		
+		// find the number of leading rows with no more unmeasured rows
+		int pos = 0;
+		for(int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+			int next = pos + step;
+			if(next > size) continue;
+			
+			int u = step - countTree[next];
+			if(u <= n) {
+				pos = next;
+				n -= u;
+			}
+		}
+		
+		return pos < size ? pos : -1;
+	}
+	
+	/**
+	 * Gets the vertical offset of the specified row.
+	 * @param index The index of the row. If equal to the number of rows,
+	 * the total height of the rows is returned.
+	 * @return The sum of the heights of the rows before the specified row.
+	 */
+	public int
+	getOffset(int index) {
+		if(index < 0 || index > size) throw new IndexOutOfBoundsException("index: " + index);
+		
+		validateTrees();
+		
+		int h = 0, n = 0;
+		for(int i = index; i > 0; i -= i & -i) {
+			h += heightTree[i];
+			n += countTree[i];
+		}
+		
+		return h + (index - n) * getEstimatedRowHeight();
+	}
+	
+	/**
+	 * Gets the total height of all rows.
+	 * @return The total height of all rows.
+	 */
+	public int
+	getTotalHeight() { return getOffset(size); }
+	
+	/**
+	 * Gets the index of the row at the specified vertical offset.
+	 * @param y The vertical offset.
+	 * @return The index of the row containing the specified offset, the index of
+	 * the first or the last row if the offset is out of range, or -1 if there are no rows.
+	 */
+	public int
+	getRowAt(int y) {
+		if(size == 0) return -1;
+		
+		validateTrees();
+		int estimate = getEstimatedRowHeight();
+		
+		// find the number of leading rows that end at or before y
+		int pos = 0;
+		for(int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+			int next = pos + step;
+			if(next > size) continue;
+			
+			int h = heightTree[next] + (step - countTree[next]) * estimate;
+			if(h <= y) {
+				pos = next;
+				y -= h;
+			}
+		}
+		
+		return Math.min(size - 1, pos);
+	}
+	
+	/**
+	 * Gets the first row whose offset or height may have
+	 * changed since the last invocation of {@link #clearChanges}.
+	 */
+	public int
+	getFirstChangedRow() { return firstChangedRow; }
+	
+	/** Marks the offsets and heights of all rows as up to date. */
+	public void
+	clearChanges() { firstChangedRow = size; }
+	
+	private void
+	changed(int index) { firstChangedRow = Math.min(firstChangedRow, index); }
+	
+	private void
+	unmeasure(int index) {
+		if(!measured[index]) return;
+		
+		int estimate = getEstimatedRowHeight();
+		measured[index] = false;
+		measuredHeight -= heights[index];
+		measuredCount--;
+		updateTrees(index, -heights[index], -1);
+		updateWidthTree(index);
+		
+		if(estimate != getEstimatedRowHeight()) estimateChanged();
+		else if(heights[index] != estimate) changed(index);
+	}
+	
+	/**
+	 * Only the heights of the rows which are not measured depend on the
+	 * estimated row height, so the rows before the first of them are not changed.
+	 */
+	private void
+	estimateChanged() {
+		int i = getNextUnmeasuredRow(0);
+		if(i != -1) changed(i);
+	}
+	
+	private void
+	updateTrees(int index, int height, int count) {
+		if(!treeValid) return;
+		
+		for(int i = index + 1; i <= size; i += i & -i) {
+			heightTree[i] += height;
+			countTree[i] += count;
+		}
+	}
+	
+	/** Updates the width of the specified row in the segment tree. */
+	private void
+	updateWidthTree(int index) {
+		if(!treeValid) return;
+		
+		int i = index + heights.length;
+		widthTree[i] = measured[index] ? widths[index] : 0;
+		
+		for(i >>= 1; i > 0; i >>= 1) widthTree[i] = Math.max(widthTree[2 * i], widthTree[2 * i + 1]);
+	}
+	
+	/** Rebuilds the Fenwick trees and the segment tree in linear time. */
+	private void
+	validateTrees() {
+		if(treeValid) return;
+		
+		for(int i = 1; i <= size; i++) {
+			boolean m = measured[i - 1];
+			heightTree[i] = m ? heights[i - 1] : 0;
+			countTree[i] = m ? 1 : 0;
+		}
+		
+		for(int i = 1; i <= size; i++) {
+			int j = i + (i & -i);
+			if(j > size) continue;
+			
+			heightTree[j] += heightTree[i];
+			countTree[j] += countTree[i];
+		}
+		
+		int n = heights.length;
+		for(int i = 0; i < n; i++) widthTree[n + i] = i < size && measured[i] ? widths[i] : 0;
+		for(int i = n - 1; i > 0; i--) widthTree[i] = Math.max(widthTree[2 * i], widthTree[2 * i + 1]);
+		
+		treeValid = true;
+	}
+	
+	private int
+	checkIndex(int index) {
+		if(index < 0 || index >= size) throw new IndexOutOfBoundsException("index: " + index);
+		return index;
+	}
+	
+	private void
+	ensureCapacity(int capacity) {
+		if(capacity <= heights.length) return;
+		
+		int n = Math.max(capacity, heights.length * 2);
+		heights = Arrays.copyOf(heights, n);
+		measured = Arrays.copyOf(measured, n);
+		widths = Arrays.copyOf(widths, n);
+		maximumWidths = Arrays.copyOf(maximumWidths, n);
+		heightTree = new int[n + 1];
+		countTree = new int[n + 1];
+		widthTree = new int[2 * n];
+		treeValid = false;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,332 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+
+package com.grigoriliev.jsampler.juife.swing.plaf.basic;
+
+import java.awt.AlphaComposite;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+
+
+/**
+ * Caches images of the rows of a <code>ComponentList</code>, so that the rows which
+ * haven't changed are painted by drawing their images instead of painting their
+ * component trees. An image is reused while the size, the selection state and the
+ * graphics scale of the row are unchanged and neither the row nor its descendants
+ * have been repainted or invalidated.
+ * <p>The repaint requests are tracked with a <code>RepaintManager</code>, which is
+ * installed when the first cache is created and is replaced with the original one
+ * when the last cache is disposed. The rows that keep changing on each paint are
+ * painted directly, without caching. The images are kept in least recently used
+ * order and the oldest images are discarded when their total size exceeds
+ * {@link #MAX_CACHE_BYTES}.</p>
+ * @author Grigor Iliev
+ */
+class RowSnapshotCache {
+	/** The number of consecutive paints of a changed row after which it is painted directly. */
+	private final static int MAX_CHANGED_PAINTS = 2;
+	
+	/** The maximum total size in bytes of the images kept by a cache. */
+	final static long MAX_CACHE_BYTES = 32L * 1024 * 1024;
+	
+	/** The number of the caches which are not disposed yet. */
+	private static int cacheCount = 0;
+	
+	/** The repaint manager replaced by <code>SnapshotRepaintManager</code>. */
+	private static RepaintManager originalManager = null;
+	
+	private final JComponent listPane;
+	
+	/** The images of the rows in least recently used order. */
+	private final Map<Component, Snapshot> snapshots = new LinkedHashMap<Component, Snapshot>(16, 0.75f, true);
+	
+	/** The total size in bytes of the cached images. */
+	private long cacheBytes = 0;
+	
+	private boolean disposed = false;
+	
+	private
+	RowSnapshotCache(JComponent listPane) {
+		this.listPane = listPane;
+		listPane.putClientProperty(RowSnapshotCache.class, this);
+	}
+	
+	/**
+	 * Creates a cache for the rows of the specified component and installs the repaint
+	 * manager which notifies the caches about the repainted rows, if it isn't installed yet.
+	 * @param listPane The component whose children are the rows of the list.
+	 * @return The new cache or <code>null</code> if another custom repaint manager
+	 * is installed, in which case the repainted rows cannot be tracked.
+	 */
+	static RowSnapshotCache
+	create(JComponent listPane) {
+		RepaintManager rm = RepaintManager.currentManager(listPane);
+		
+		if(!(rm instanceof SnapshotRepaintManager)) {
+			if(rm.getClass() != RepaintManager.class) return null;
+			
+			originalManager = rm;
+			RepaintManager.setCurrentManager(new SnapshotRepaintManager());
+		}
+		
+		cacheCount++;
+		return new RowSnapshotCache(listPane);
+	}
+	
+	/**
+	 * Discards all images and detaches the cache from the list. When the last cache is
+	 * disposed, the original repaint manager is restored, unless it has been replaced since.
+	 */
+	void
+	dispose() {
+		if(disposed) return;
+		disposed = true;
+		
+		clear();
+		listPane.putClientProperty(RowSnapshotCache.class, null);
+		
+		if(--cacheCount > 0) return;
+		
+		if(RepaintManager.currentManager(listPane) instanceof SnapshotRepaintManager) {
+			RepaintManager.setCurrentManager(originalManager);
+		}
+		
+		originalManager = null;
+	}
+	
+	/**
+	 * Determines whether the repainted rows are still tracked. The repaint manager may
+	 * be replaced by the application, in which case the images are discarded.
+	 * @return <code>true</code> if the rows can be painted from the cache,
+	 * <code>false</code> if they should be painted directly.
+	 */
+	boolean
+	isTracking() {
+		if(RepaintManager.currentManager(listPane) instanceof SnapshotRepaintManager) return true;
+		
+		clear();
+		return false;
+	}
+	
+	/** Discards all images. */
+	private void
+	clear() {
+		snapshots.clear();
+		cacheBytes = 0;
+	}
+	
+	/** Discards the image of the specified row. */
+	void
+	remove(Component row) {
+		Snapshot s = snapshots.remove(row);
+		if(s != null) cacheBytes -= s.getBytes();
+	}
+	
+	/** Discards the least recently used images until the cache fits in its budget. */
+	private void
+	trim() {
+		Iterator<Snapshot> it = snapshots.values().iterator();
+		
+		// the most recently used image is kept, even if it exceeds the budget alone
+		while(cacheBytes > MAX_CACHE_BYTES && snapshots.size() > 1) {
+			Snapshot s = it.next();
+			cacheBytes -= s.getBytes();
+			it.remove();
+		}
+	}
+	
+	/** Marks the image of the specified row as outdated. */
+	void
+	rowChanged(Component row) {
+		Snapshot s = snapshots.get(row);
+		if(s != null) s.changed = true;
+	}
+	
+	/**
+	 * Paints the specified row from its cached image, updating the image if needed.
+	 * @param row The row to paint.
+	 * @param g The graphics context of <code>listPane</code>.
+	 * @param selected Specifies whether the row is selected.
+	 */
+	void
+	paintRow(Component row, Graphics g, boolean selected) {
+		int w = row.getWidth(), h = row.getHeight();
+		if(w <= 0 || h <= 0) return;
+		
+		if(!(row instanceof JComponent) || !(g instanceof Graphics2D)) {
+			paintDirectly(row, g);
+			return;
+		}
+		
+		// the images are drawn without scaling, so only scaled and translated graphics are supported
+		AffineTransform at = ((Graphics2D)g).getTransform();
+		int type = AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE;
+		if((at.getType() & ~type) != 0 || at.getScaleX() <= 0 || at.getScaleY() <= 0) {
+			paintDirectly(row, g);
+			return;
+		}
+		
+		double sx = at.getScaleX(), sy = at.getScaleY();
+		Snapshot s = snapshots.computeIfAbsent(row, k -> new Snapshot());
+		if(!row.isValid()) s.changed = true;
+		
+		if(s.changed) {
+			s.changed = false;
+			
+			if(++s.changedPaints > MAX_CHANGED_PAINTS) {
+				cacheBytes -= s.getBytes();
+				s.image = null;
+				paintDirectly(row, g);
+				return;
+			}
+		} else {
+			s.changedPaints = 0;
+			
+			if(s.matches(w, h, selected, sx, sy)) {
+				drawImage(s.image, row, (Graphics2D)g, at);
+				return;
+			}
+		}
+		
+		cacheBytes -= s.getBytes();
+		s.update(row, selected, sx, sy);
+		cacheBytes += s.getBytes();
+		drawImage(s.image, row, (Graphics2D)g, at);
+		
+		trim();
+	}
+	
+	private void
+	drawImage(BufferedImage image, Component row, Graphics2D g, AffineTransform at) {
+		Graphics2D g2 = (Graphics2D)g.create();
+		
+		try {
+			double x = at.getTranslateX() + row.getX() * at.getScaleX();
+			double y = at.getTranslateY() + row.getY() * at.getScaleY();
+			g2.setTransform(AffineTransform.getTranslateInstance(Math.round(x), Math.round(y)));
+			g2.drawImage(image, 0, 0, null);
+		} finally {
+			g2.dispose();
+		}
+	}
+	
+	private static void
+	paintDirectly(Component row, Graphics g) {
+		Graphics g2 = g.create(row.getX(), row.getY(), row.getWidth(), row.getHeight());
+		try { row.paint(g2); }
+		finally { g2.dispose(); }
+	}
+	
+	private static class Snapshot {
+		BufferedImage image = null;
+		int width, height;
+		boolean selected;
+		double scaleX, scaleY;
+		
+		/** Determines whether the row has been repainted or invalidated since the image was updated. */
+		boolean changed = false;
+		
+		/** The number of consecutive paints of the row, which found the row changed. */
+		int changedPaints = 0;
+		
+		/** Gets the size in bytes of the image. */
+		long
+		getBytes() { return image == null ? 0 : 4L * image.getWidth() * image.getHeight(); }
+		
+		boolean
+		matches(int w, int h, boolean selected, double sx, double sy) {
+			if(image == null || width != w || height != h || this.selected != selected) return false;
+			return scaleX == sx && scaleY == sy;
+		}
+		
+		void
+		update(Component row, boolean selected, double sx, double sy) {
+			width = row.getWidth();
+			height = row.getHeight();
+			this.selected = selected;
+			scaleX = sx;
+			scaleY = sy;
+			
+			int iw = (int)Math.ceil(width * sx), ih = (int)Math.ceil(height * sy);
+			Graphics2D g;
+			
+			if(image == null || image.getWidth() != iw || image.getHeight() != ih) {
+				image = new BufferedImage(iw, ih, BufferedImage.TYPE_INT_ARGB_PRE);
+				g = image.createGraphics();
+			} else {
+				g = image.createGraphics();
+				g.setComposite(AlphaComposite.Clear);
+				g.fillRect(0, 0, iw, ih);
+				g.setComposite(AlphaComposite.SrcOver);
+			}
+			
+			try {
+				g.scale(sx, sy);
+				g.setClip(0, 0, width, height);
+				row.paint(g);
+			} finally {
+				g.dispose();
+			}
+		}
+	}
+	
+	/**
+	 * Notifies the caches of the lists about the repainted rows,
+	 * before the repaint requests are processed.
+	 */
+	private static class SnapshotRepaintManager extends RepaintManager {
+		@Override
+		public void
+		addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+			if(SwingUtilities.isEventDispatchThread()) rowRepainted(c);
+			else SwingUtilities.invokeLater(() -> rowRepainted(c));
+			
+			super.addDirtyRegion(c, x, y, w, h);
+		}
+		
+		private void
+		rowRepainted(Component c) {
+			for(Component p = c; p != null; p = p.getParent()) {
+				Component parent = p.getParent();
+				if(!(parent instanceof JComponent)) continue;
+				
+				Object cache = ((JComponent)parent).getClientProperty(RowSnapshotCache.class);
+				if(cache != null) {
+					((RowSnapshotCache)cache).rowChanged(p);
+					return;
+				}
+			}
+		}
+	}
+}
\ No newline at end of file
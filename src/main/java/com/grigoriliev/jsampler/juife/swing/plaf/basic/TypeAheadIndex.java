@@ -0,0 +1,314 @@
+/*
+ *   juife - Java User Interface Framework Extensions
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of juife.
+ *
+ *   juife is free software; you can redistribute it and/or
+ *   modify it under the terms of the GNU Lesser General Public
+ *   License version 2.1 as published by the Free Software Foundation.
+ *
+ *   juife is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *   Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with juife; if not, write to the Free Software
+ *   Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ *   MA  02110-1301, USA
+ */
+
+
+package com.grigoriliev.jsampler.juife.swing.plaf.basic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+
+/**
+ * A sorted index of the texts of the rows of a <code>ComponentList</code>, used by
+ * the type-ahead search. The texts are normalized to lower case and kept in a
+ * <code>TreeMap</code>, so finding a row by prefix takes <code>O(log n)</code> time.
+ * The rows are referred to by their positions in the data model, so the index doesn't
+ * keep references to the components. The rows are kept in the order of the data model
+ * in a randomized balanced tree (a treap ordered by position), so the position of
+ * a row is computed from the sizes of the subtrees on the path to the root and the
+ * index is updated on each data model event in <code>O(log n)</code> expected time
+ * per changed row. The index is built from scratch on the first lookup after it
+ * is invalidated or when its size doesn't match the size of the data model.
+ * @author Grigor Iliev
+ */
+class TypeAheadIndex {
+	private final IntFunction<String> textAt;
+	
+	/** The normalized texts mapped to the rows with these texts. */
+	private final TreeMap<String, List<Row>> map = new TreeMap<String, List<Row>>();
+	
+	private final Random random = new Random();
+	
+	/** The root of the tree of the rows in the order of the data model. */
+	private Row root = null;
+	
+	/** The results of the last split. */
+	private Row splitLeft, splitRight;
+	
+	private boolean valid = false;
+	
+	
+	/**
+	 * Creates a new instance of <code>TypeAheadIndex</code>.
+	 * @param textAt Provides the text of the row at the specified position,
+	 * or <code>null</code> if the row should not be found.
+	 */
+	TypeAheadIndex(IntFunction<String> textAt) {
+		this.textAt = textAt;
+	}
+	
+	/** Marks the index to be rebuilt on the next lookup. */
+	public void
+	invalidate() {
+		valid = false;
+		map.clear();
+		root = null;
+	}
+	
+	/**
+	 * Replaces the specified number of rows starting at the specified position
+	 * with the specified number of the corresponding rows of the data model.
+	 * If the index is not valid, the change is ignored.
+	 * @param size The size of the data model, which already contains the new rows
+	 * (it may differ if the change is followed by other changes).
+	 * @param index The position of the first changed row.
+	 * @param oldCount The number of the replaced rows.
+	 * @param newCount The number of the new rows.
+	 */
+	public void
+	update(int size, int index, int oldCount, int newCount) {
+		if(!valid) return;
+		
+		if(index + oldCount > size(root) || index + newCount > size) {
+			invalidate();
+			return;
+		}
+		
+		split(root, index);
+		Row left = splitLeft;
+		split(splitRight, oldCount);
+		Row right = splitRight;
+		unmapAll(splitLeft);
+		
+		root = merge(merge(left, createRows(index, newCount)), right);
+	}
+	
+	/**
+	 * Finds a row whose text starts with the specified prefix. The rows are
+	 * searched in the alphabetical order of their texts, so that repeating the
+	 * search from the found row cycles through all matching rows.
+	 * @param size The size of the data model.
+	 * @param prefix The prefix to look for.
+	 * @param current The position of the row the search starts from or -1.
+	 * @param skipCurrent Specifies whether the current row should be
+	 * skipped if its text also starts with the prefix.
+	 * @return The position of the found row or -1 if there is no matching row.
+	 */
+	public int
+	find(int size, String prefix, int current, boolean skipCurrent) {
+		if(!valid || size(root) != size) build(size);
+		
+		prefix = normalize(prefix);
+		if(prefix == null) return -1;
+		
+		String text = current < 0 || current >= size ? null : getRow(current).text;
+		
+		if(text != null && text.startsWith(prefix)) {
+			if(!skipCurrent) return current;
+			
+			// the next row with the same text
+			int next = -1;
+			for(Row r : map.get(text)) {
+				int pos = getPosition(r);
+				if(pos > current && (next == -1 || pos < next)) next = pos;
+			}
+			
+			if(next != -1) return next;
+			
+			Map.Entry<String, List<Row>> e = map.higherEntry(text);
+			if(e != null && e.getKey().startsWith(prefix)) return getFirst(e.getValue());
+		}
+		
+		// start over from the first matching text
+		Map.Entry<String, List<Row>> e = map.ceilingEntry(prefix);
+		if(e == null || !e.getKey().startsWith(prefix)) return -1;
+		
+		return getFirst(e.getValue());
+	}
+	
+	private void
+	build(int size) {
+		invalidate();
+		root = createRows(0, size);
+		valid = true;
+	}
+	
+	/** Creates a tree of the rows of the data model in the specified interval. */
+	private Row
+	createRows(int index, int count) {
+		Row t = null;
+		for(int i = index; i < index + count; i++) t = merge(t, map(new Row(textAt.apply(i), random.nextInt())));
+		
+		return t;
+	}
+	
+	/** Gets the row at the specified position. */
+	private Row
+	getRow(int index) {
+		Row r = root;
+		
+		for(;;) {
+			int l = size(r.left);
+			if(index == l) return r;
+			
+			if(index < l) {
+				r = r.left;
+			} else {
+				index -= l + 1;
+				r = r.right;
+			}
+		}
+	}
+	
+	/** Gets the first position of the specified rows. */
+	private static int
+	getFirst(List<Row> l) {
+		int first = getPosition(l.get(0));
+		for(Row r : l) first = Math.min(first, getPosition(r));
+		
+		return first;
+	}
+	
+	private static int
+	getPosition(Row r) {
+		int pos = size(r.left);
+		
+		for(Row p = r; p.parent != null; p = p.parent) {
+			if(p == p.parent.right) pos += size(p.parent.left) + 1;
+		}
+		
+		return pos;
+	}
+	
+	private static int
+	size(Row r) { return r == null ? 0 : r.size; }
+	
+	private static void
+	update(Row r) {
+		r.size = size(r.left) + size(r.right) + 1;
+		if(r.left != null) r.left.parent = r;
+		if(r.right != null) r.right.parent = r;
+	}
+	
+	/**
+	 * Splits the specified tree into <code>splitLeft</code>, containing the first
+	 * <code>count</code> rows, and <code>splitRight</code>, containing the rest.
+	 */
+	private void
+	split(Row t, int count) {
+		if(t == null) {
+			splitLeft = splitRight = null;
+			return;
+		}
+		
+		t.parent = null;
+		
+		if(size(t.left) >= count) {
+			split(t.left, count);
+			t.left = splitRight;
+			update(t);
+			splitRight = t;
+		} else {
+			split(t.right, count - size(t.left) - 1);
+			t.right = splitLeft;
+			update(t);
+			splitLeft = t;
+		}
+	}
+	
+	/** Concatenates the specified trees. */
+	private static Row
+	merge(Row a, Row b) {
+		if(a == null) return b;
+		if(b == null) return a;
+		
+		if(a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			update(a);
+			return a;
+		}
+		
+		b.left = merge(a, b.left);
+		update(b);
+		return b;
+	}
+	
+	private Row
+	map(Row r) {
+		if(r.text == null) return r;
+		
+		List<Row> l = map.get(r.text);
+		if(l == null) map.put(r.text, l = new ArrayList<Row>(1));
+		l.add(r);
+		
+		return r;
+	}
+	
+	/** Removes the rows of the specified tree from the map. */
+	private void
+	unmapAll(Row t) {
+		if(t == null) return;
+		
+		unmapAll(t.left);
+		unmap(t);
+		unmapAll(t.right);
+	}
+	
+	private void
+	unmap(Row r) {
+		if(r.text == null) return;
+		
+		List<Row> l = map.get(r.text);
+		if(l == null) return;
+		
+		for(int i = 0; i < l.size(); i++) {
+			if(l.get(i) != r) continue;
+			
+			l.remove(i);
+			break;
+		}
+		
+		if(l.isEmpty()) map.remove(r.text);
+	}
+	
+	private static String
+	normalize(String s) { return s == null ? null : s.toLowerCase(Locale.ROOT); }
+	
+	private static class Row {
+		/** The normalized text of the row. */
+		final String text;
+		
+		final int priority;
+		int size = 1;
+		Row left, right, parent;
+		
+		Row(String text, int priority) {
+			this.text = normalize(text);
+			this.priority = priority;
+		}
+	}
+}
\ No newline at end of file